@@ -0,0 +1,46 @@
+package com.example.meetime_test_app.aspect;
+
+import com.example.meetime_test_app.filter.OAuth2TokenFilter;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OAuth2TokenContextAspect {
+
+    @Around("within(com.example.meetime_test_app.controller..*) && (execution(reactor.core.publisher.Mono *(..)) || execution(reactor.core.publisher.Flux *(..)))")
+    public Object propagateToken(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        Object result = joinPoint.proceed();
+
+        if (requestAttributes == null) {
+            return result;
+        }
+
+        String accessToken = (String) requestAttributes.getAttribute(OAuth2TokenFilter.ACCESS_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+        if (accessToken == null) {
+            return result;
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return mono.contextWrite(OAuth2TokenHolder.withToken(accessToken));
+        }
+
+        if (result instanceof Flux<?> flux) {
+            return flux.contextWrite(OAuth2TokenHolder.withToken(accessToken));
+        }
+
+        return result;
+    }
+}
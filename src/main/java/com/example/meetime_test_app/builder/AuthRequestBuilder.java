@@ -16,4 +16,14 @@ public class AuthRequestBuilder {
         return requestBody;
     }
 
+    public static MultiValueMap<String, String> buildRefresh(String refreshToken, String clientId, String clientSecret) {
+        MultiValueMap<String, String> requestBody = new LinkedMultiValueMap<>();
+        requestBody.add("grant_type", "refresh_token");
+        requestBody.add("client_id", clientId);
+        requestBody.add("client_secret", clientSecret);
+        requestBody.add("refresh_token", refreshToken);
+
+        return requestBody;
+    }
+
 }
@@ -2,21 +2,74 @@ package com.example.meetime_test_app.builder;
 
 import com.example.meetime_test_app.dto.request.CreateContactRequest;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ContactRequestBuilder {
 
+    private static final List<String> CONTACT_PROPERTIES = List.of("createdate", "email", "firstname", "hs_object_id", "lastmodifieddate", "lastname");
+
     //@todo Implement contact association logic
     public static Map<String, Object> buildCreateContact(CreateContactRequest createContactRequest) {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("associations", List.of());
-        requestBody.put("properties", Map.of(
+        requestBody.put("properties", buildProperties(createContactRequest));
+        return requestBody;
+    }
+
+    public static Map<String, Object> buildBatchCreateContacts(List<CreateContactRequest> createContactRequests) {
+        return Map.of("inputs", createContactRequests.stream()
+                .map(ContactRequestBuilder::buildCreateContact)
+                .toList());
+    }
+
+    public static Map<String, Object> buildBatchUpsertContacts(List<CreateContactRequest> createContactRequests) {
+        return Map.of("inputs", createContactRequests.stream()
+                .map(createContactRequest -> Map.of(
+                        "idProperty", "email",
+                        "id", createContactRequest.getEmail(),
+                        "properties", buildProperties(createContactRequest)
+                ))
+                .toList());
+    }
+
+    public static Map<String, Object> buildBatchReadContactsByEmail(List<String> emails) {
+        return Map.of(
+                "idProperty", "email",
+                "properties", List.of("email"),
+                "inputs", emails.stream().map(email -> Map.of("id", email)).toList()
+        );
+    }
+
+    public static Map<String, Object> buildBatchReadContacts(Collection<Long> contactIds) {
+        return Map.of(
+                "properties", CONTACT_PROPERTIES,
+                "inputs", contactIds.stream().map(contactId -> Map.of("id", String.valueOf(contactId))).toList()
+        );
+    }
+
+    public static Map<String, Object> buildSearchContactsModifiedBetween(long fromExclusive, long toInclusive, String after, int limit) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("filterGroups", List.of(Map.of("filters", List.of(
+                Map.of("propertyName", "lastmodifieddate", "operator", "GT", "value", String.valueOf(fromExclusive)),
+                Map.of("propertyName", "lastmodifieddate", "operator", "LTE", "value", String.valueOf(toInclusive))
+        ))));
+        requestBody.put("sorts", List.of(Map.of("propertyName", "lastmodifieddate", "direction", "ASCENDING")));
+        requestBody.put("properties", CONTACT_PROPERTIES);
+        requestBody.put("limit", limit);
+        if (after != null) {
+            requestBody.put("after", after);
+        }
+        return requestBody;
+    }
+
+    private static Map<String, Object> buildProperties(CreateContactRequest createContactRequest) {
+        return Map.of(
             "email", createContactRequest.getEmail(),
             "firstname", createContactRequest.getFirstName(),
             "lastname", createContactRequest.getLastName()
-        ));
-        return requestBody;
+        );
     }
 }
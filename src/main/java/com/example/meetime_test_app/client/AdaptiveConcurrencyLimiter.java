@@ -0,0 +1,135 @@
+package com.example.meetime_test_app.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * AIMD concurrency limit: every call that completes in time while the limit is in use raises it by
+ * about one per limit's worth of calls, and a call that was throttled, failed or slower than
+ * {@code latencyThreshold} multiplies it by {@code backoffRatio}. Only calls started after the last
+ * decrease can decrease it again, so one burst of slow calls counts once. Calls over the limit wait
+ * in a bounded FIFO queue and are granted as slots free up.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private final int maxQueued;
+
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private boolean decreased;
+
+    private long decreasedAt;
+
+    private long rejected;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, Duration latencyThreshold, int maxQueued) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Runs {@code onGranted} once the call may start, right away when under the limit. Returns false,
+     * without running it, when the queue is full.
+     */
+    public boolean acquire(Runnable onGranted) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                if (queue.size() >= maxQueued) {
+                    rejected++;
+                    return false;
+                }
+                queue.addLast(onGranted);
+                return true;
+            }
+            inFlight++;
+        }
+        onGranted.run();
+        return true;
+    }
+
+    /**
+     * Withdraws a queued call. Returns false when it was already granted, in which case the slot must
+     * be given back with {@link #release(long, long, boolean)} or {@link #releaseUnused()}.
+     */
+    public synchronized boolean cancel(Runnable onGranted) {
+        return queue.remove(onGranted);
+    }
+
+    /**
+     * Gives back the slot of a call that ran from {@code startNanos} to {@code endNanos}.
+     */
+    public void release(long startNanos, long endNanos, boolean overloaded) {
+        List<Runnable> granted;
+        synchronized (this) {
+            inFlight--;
+            if (overloaded || endNanos - startNanos > latencyThresholdNanos) {
+                if (!decreased || startNanos - decreasedAt > 0) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    decreased = true;
+                    decreasedAt = endNanos;
+                }
+            } else if (inFlight * 2 >= (int) limit) {
+                // Only grow when the current limit is actually being used.
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            granted = grant();
+        }
+        granted.forEach(Runnable::run);
+    }
+
+    /**
+     * Gives back a slot that was granted to a call that never started.
+     */
+    public void releaseUnused() {
+        List<Runnable> granted;
+        synchronized (this) {
+            inFlight--;
+            granted = grant();
+        }
+        granted.forEach(Runnable::run);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private List<Runnable> grant() {
+        List<Runnable> granted = new ArrayList<>();
+        while (inFlight < (int) limit && !queue.isEmpty()) {
+            inFlight++;
+            granted.add(queue.pollFirst());
+        }
+        return granted;
+    }
+}
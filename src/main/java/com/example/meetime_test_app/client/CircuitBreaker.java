@@ -0,0 +1,133 @@
+package com.example.meetime_test_app.client;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the outcomes of the last {@code windowSize} calls. It opens once
+ * at least {@code minimumCalls} were recorded and the failure rate reaches the threshold, rejects
+ * every call for {@code openDuration}, then lets {@code halfOpenCalls} trial calls through: any
+ * failure opens it again, and all of them succeeding closes it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final boolean[] failures;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final long openDurationNanos;
+
+    private final int halfOpenCalls;
+
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+
+    private int recorded;
+
+    private int next;
+
+    private int failureCount;
+
+    private long openedAt;
+
+    private int trialsStarted;
+
+    private int trialsSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration, int halfOpenCalls) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration, int halfOpenCalls, LongSupplier nanoClock) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether a call may go out now. Every permitted call must be followed by {@link #onResult}
+     * or {@link #onIgnored}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(boolean success) {
+        switch (state) {
+            case HALF_OPEN -> {
+                if (!success) {
+                    open();
+                } else if (++trialsSucceeded >= halfOpenCalls) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                record(!success);
+                if (recorded >= minimumCalls && (double) failureCount / recorded >= failureRateThreshold) {
+                    open();
+                }
+            }
+            // Calls that started before the breaker opened do not count.
+            case OPEN -> { }
+        }
+    }
+
+    // A permitted call that ended without an outcome, e.g. cancelled, gives its trial slot back.
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            failureCount -= failures[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        failureCount += failure ? 1 : 0;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failureCount = 0;
+    }
+}
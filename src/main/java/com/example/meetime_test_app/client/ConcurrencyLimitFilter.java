@@ -0,0 +1,159 @@
+package com.example.meetime_test_app.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how many HubSpot calls are in flight with an {@link AdaptiveConcurrencyLimiter}, so that a
+ * slow HubSpot makes us send less instead of piling up connections and memory. It sits inside the
+ * retry filter: every attempt takes its own slot, and nothing holds one while backing off. A call is
+ * in flight until its response headers arrive; throttled, failed or slow calls shrink the limit.
+ */
+@Component
+public class ConcurrencyLimitFilter implements ExchangeFilterFunction, MeterBinder {
+
+    private static final int WAITING = 0;
+
+    private static final int GRANTED = 1;
+
+    private static final int STARTED = 2;
+
+    private static final int CANCELLED = 3;
+
+    @Value("${integration.hubspot.concurrency.initial-limit}")
+    public int initialLimit;
+
+    @Value("${integration.hubspot.concurrency.min-limit}")
+    public int minLimit;
+
+    @Value("${integration.hubspot.concurrency.max-limit}")
+    public int maxLimit;
+
+    @Value("${integration.hubspot.concurrency.backoff-ratio}")
+    public double backoffRatio;
+
+    @Value("${integration.hubspot.concurrency.latency-threshold}")
+    public Duration latencyThreshold;
+
+    @Value("${integration.hubspot.concurrency.max-queued}")
+    public int maxQueued;
+
+    @Value("${integration.hubspot.concurrency.max-queue-wait}")
+    public Duration maxQueueWait;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold, maxQueued);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            Slot slot = new Slot();
+            return slot.acquire()
+                    .then(Mono.defer(() -> slot.start() ? exchange(request, next) : Mono.error(overloaded())))
+                    // Covers a cancel that lands after the grant but before the exchange started.
+                    .doOnCancel(slot::abandon);
+        });
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("hubspot.http.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).register(registry);
+        Gauge.builder("hubspot.http.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight).register(registry);
+        Gauge.builder("hubspot.http.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::getQueued).register(registry);
+        FunctionCounter.builder("hubspot.http.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected).register(registry);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next) {
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        return next.exchange(request)
+                .doOnSuccess(response -> release(released, start, response != null && isOverloaded(response)))
+                .doOnError(ex -> release(released, start, true))
+                .doOnCancel(() -> release(released, start, false));
+    }
+
+    private void release(AtomicBoolean released, long start, boolean overloaded) {
+        if (released.compareAndSet(false, true)) {
+            limiter.release(start, System.nanoTime(), overloaded);
+        }
+    }
+
+    private static boolean isOverloaded(ClientResponse response) {
+        return response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()
+                || response.statusCode().is5xxServerError();
+    }
+
+    private static ResponseStatusException overloaded() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many HubSpot calls in flight, try again later.");
+    }
+
+    /**
+     * The slot of one call, from the moment it asks the limiter until its exchange starts. A grant
+     * that arrives after the call gave up is handed back by the grant itself; a cancel or a queue
+     * timeout that arrives after the grant, but before the exchange started, hands it back instead.
+     */
+    private final class Slot {
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private volatile MonoSink<Void> sink;
+
+        private final Runnable onGranted = () -> {
+            if (state.compareAndSet(WAITING, GRANTED)) {
+                sink.success();
+            } else {
+                limiter.releaseUnused();
+            }
+        };
+
+        private Mono<Void> acquire() {
+            return Mono.<Void>create(sink -> {
+                        this.sink = sink;
+                        sink.onCancel(this::abandon);
+
+                        if (!limiter.acquire(onGranted)) {
+                            state.set(CANCELLED);
+                            sink.error(overloaded());
+                        }
+                    })
+                    .timeout(maxQueueWait, Mono.defer(() -> {
+                        abandon();
+                        return Mono.error(overloaded());
+                    }));
+        }
+
+        private boolean start() {
+            return state.compareAndSet(GRANTED, STARTED);
+        }
+
+        private void abandon() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                limiter.cancel(onGranted);
+            } else if (state.compareAndSet(GRANTED, CANCELLED)) {
+                limiter.releaseUnused();
+            }
+        }
+    }
+}
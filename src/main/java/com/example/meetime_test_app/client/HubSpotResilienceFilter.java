@@ -0,0 +1,224 @@
+package com.example.meetime_test_app.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries HubSpot calls that failed for reasons worth another try, waiting as long as HubSpot asks
+ * through {@code Retry-After} or its rate limit headers, or a jittered exponential backoff
+ * otherwise. A 429 is retried for any method since HubSpot did not process the request; server
+ * errors and timeouts only for idempotent calls. A circuit breaker over server and transport errors
+ * fails calls right away with 503 while HubSpot is having an incident.
+ */
+@Component
+public class HubSpotResilienceFilter implements ExchangeFilterFunction, MeterBinder {
+
+    /**
+     * Request attribute marking a call as safe to repeat even though its method is not, e.g. a search.
+     */
+    public static final String IDEMPOTENT_ATTRIBUTE = HubSpotResilienceFilter.class.getName() + ".IDEMPOTENT";
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE);
+
+    private static final String SECONDLY_REMAINING_HEADER = "X-HubSpot-RateLimit-Secondly-Remaining";
+
+    private static final String REMAINING_HEADER = "X-HubSpot-RateLimit-Remaining";
+
+    private static final String INTERVAL_HEADER = "X-HubSpot-RateLimit-Interval-Milliseconds";
+
+    @Value("${integration.hubspot.resilience.max-attempts}")
+    public int maxAttempts;
+
+    @Value("${integration.hubspot.resilience.initial-backoff}")
+    public Duration initialBackoff;
+
+    @Value("${integration.hubspot.resilience.max-backoff}")
+    public Duration maxBackoff;
+
+    @Value("${integration.hubspot.resilience.max-retry-delay}")
+    public Duration maxRetryDelay;
+
+    @Value("${integration.hubspot.resilience.circuit-breaker.window-size}")
+    public int windowSize;
+
+    @Value("${integration.hubspot.resilience.circuit-breaker.minimum-calls}")
+    public int minimumCalls;
+
+    @Value("${integration.hubspot.resilience.circuit-breaker.failure-rate-threshold}")
+    public double failureRateThreshold;
+
+    @Value("${integration.hubspot.resilience.circuit-breaker.open-duration}")
+    public Duration openDuration;
+
+    @Value("${integration.hubspot.resilience.circuit-breaker.half-open-calls}")
+    public int halfOpenCalls;
+
+    private CircuitBreaker circuitBreaker;
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder shortCircuited = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(@NonNull ClientRequest request, @NonNull ExchangeFunction next) {
+        return exchange(request, next, 1);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("hubspot.http.retries", retries, LongAdder::sum).register(registry);
+        FunctionCounter.builder("hubspot.http.short-circuited", shortCircuited, LongAdder::sum).register(registry);
+        Gauge.builder("hubspot.http.circuit-breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 half open, 2 open")
+                .register(registry);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                shortCircuited.increment();
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "HubSpot is unavailable, try again later."));
+            }
+
+            return next.exchange(request)
+                    .doOnCancel(circuitBreaker::onIgnored)
+                    .materialize()
+                    .flatMap(signal -> {
+                        if (signal.isOnNext()) {
+                            return onResponse(request, next, signal.get(), attempt);
+                        }
+                        if (signal.isOnError()) {
+                            return onError(request, next, signal.getThrowable(), attempt);
+                        }
+                        circuitBreaker.onIgnored();
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private Mono<ClientResponse> onResponse(ClientRequest request, ExchangeFunction next, ClientResponse response, int attempt) {
+        boolean serverError = response.statusCode().is5xxServerError();
+        circuitBreaker.onResult(!serverError);
+
+        boolean rateLimited = response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        if (attempt >= maxAttempts || !(rateLimited || serverError && isIdempotent(request))) {
+            return Mono.just(response);
+        }
+
+        // Waiting longer than this would hold the caller anyway; better let it see the error now.
+        Duration delay = retryDelay(response.headers().asHttpHeaders(), attempt);
+        if (delay.compareTo(maxRetryDelay) > 0) {
+            return Mono.just(response);
+        }
+
+        retries.increment();
+        return response.releaseBody()
+                .then(Mono.delay(delay))
+                .then(exchange(request, next, attempt + 1));
+    }
+
+    private Mono<ClientResponse> onError(ClientRequest request, ExchangeFunction next, Throwable ex, int attempt) {
+        // Rejected on our side before reaching HubSpot: says nothing about HubSpot's health.
+        if (ex instanceof ResponseStatusException) {
+            circuitBreaker.onIgnored();
+            return Mono.error(ex);
+        }
+
+        circuitBreaker.onResult(false);
+
+        // A refused connection never reached HubSpot, so even a create can be sent again.
+        boolean retryable = ex instanceof WebClientRequestException
+                && (isIdempotent(request) || ex.getCause() instanceof ConnectException);
+        if (!retryable || attempt >= maxAttempts) {
+            return Mono.error(ex);
+        }
+
+        retries.increment();
+        return Mono.delay(backoff(attempt)).then(exchange(request, next, attempt + 1));
+    }
+
+    private boolean isIdempotent(ClientRequest request) {
+        return IDEMPOTENT_METHODS.contains(request.method())
+                || Boolean.TRUE.equals(request.attribute(IDEMPOTENT_ATTRIBUTE).orElse(null));
+    }
+
+    private Duration retryDelay(HttpHeaders headers, int attempt) {
+        Duration retryAfter = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (retryAfter != null) {
+            return retryAfter.plus(jitter(initialBackoff));
+        }
+
+        // HubSpot's secondly limit resets within a second; the daily or burst one after its interval.
+        if ("0".equals(headers.getFirst(SECONDLY_REMAINING_HEADER))) {
+            return Duration.ofSeconds(1).plus(jitter(initialBackoff));
+        }
+        String interval = headers.getFirst(INTERVAL_HEADER);
+        if ("0".equals(headers.getFirst(REMAINING_HEADER)) && interval != null) {
+            try {
+                return Duration.ofMillis(Long.parseLong(interval.trim())).plus(jitter(initialBackoff));
+            } catch (NumberFormatException ignored) {
+                // Fall back to the backoff below.
+            }
+        }
+
+        return backoff(attempt);
+    }
+
+    // Full jitter: a random wait up to the exponential bound, so that callers failing together do
+    // not come back together.
+    private Duration backoff(int attempt) {
+        long bound = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return jitter(Duration.ofMillis(bound));
+    }
+
+    private static Duration jitter(Duration bound) {
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(bound.toMillis() + 1));
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
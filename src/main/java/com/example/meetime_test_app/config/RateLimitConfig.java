@@ -1,18 +1,117 @@
 package com.example.meetime_test_app.config;
 
+import com.example.meetime_test_app.ratelimit.FileRateLimitBackend;
+import com.example.meetime_test_app.ratelimit.KeyedBucketRegistry;
+import com.example.meetime_test_app.ratelimit.LocalRateLimitBackend;
+import com.example.meetime_test_app.ratelimit.PrefetchingRateLimitBackend;
+import com.example.meetime_test_app.ratelimit.ProxyManagerRateLimitBackend;
+import com.example.meetime_test_app.ratelimit.RateLimitBackend;
+import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 
 @Configuration
 public class RateLimitConfig {
 
+    @Value("${integration.hubspot.rate-limit.backend}")
+    public String backend;
+
+    @Value("${integration.hubspot.rate-limit.capacity}")
+    public long capacity;
+
+    @Value("${integration.hubspot.rate-limit.refill-period}")
+    public Duration refillPeriod;
+
+    @Value("${integration.hubspot.rate-limit.max-keys}")
+    public int maxKeys;
+
+    @Value("${integration.hubspot.rate-limit.idle-timeout}")
+    public Duration idleTimeout;
+
+    // Comma-separated key=capacity pairs, e.g. "12345=190,67890=50".
+    @Value("${integration.hubspot.rate-limit.overrides}")
+    public String overrides;
+
+    @Value("${integration.hubspot.rate-limit.file.directory}")
+    public String fileDirectory;
+
+    @Value("${integration.hubspot.rate-limit.prefetch.batch-size}")
+    public long prefetchBatchSize;
+
+    @Value("${integration.hubspot.rate-limit.prefetch.max-age}")
+    public Duration prefetchMaxAge;
+
+    /**
+     * "distributed" expects the deployment to provide a {@code ProxyManager<String>} bean for its
+     * shared store, e.g. from bucket4j-redis.
+     */
     @Bean
-    public Bucket rateLimitBucket() {
-        return Bucket.builder()
-                .addLimit(limit -> limit.capacity(110).refillGreedy(110, Duration.ofSeconds(10)))
+    public RateLimitBackend rateLimitBackend(ObjectProvider<ProxyManager<String>> proxyManager, Scheduler blockingScheduler) {
+        Function<String, BucketConfiguration> configurations = configurations(parseOverrides(overrides));
+
+        RateLimitBackend rateLimitBackend = switch (backend) {
+            case "local" -> new LocalRateLimitBackend(new KeyedBucketRegistry(maxKeys, idleTimeout,
+                    key -> localBucket(configurations.apply(key))));
+            case "file" -> new FileRateLimitBackend(Path.of(fileDirectory), configurations, blockingScheduler);
+            case "distributed" -> new ProxyManagerRateLimitBackend(proxyManager.getIfAvailable(() -> {
+                throw new IllegalStateException("The distributed rate limit backend needs a ProxyManager<String> bean");
+            }), configurations, blockingScheduler);
+            default -> throw new IllegalArgumentException("Unknown rate limit backend: " + backend);
+        };
+
+        return prefetchBatchSize > 1
+                ? new PrefetchingRateLimitBackend(rateLimitBackend, prefetchBatchSize, prefetchMaxAge)
+                : rateLimitBackend;
+    }
+
+    private Function<String, BucketConfiguration> configurations(Map<String, Long> capacities) {
+        BucketConfiguration defaultConfiguration = configuration(capacity);
+        Map<String, BucketConfiguration> overridden = new HashMap<>();
+        capacities.forEach((key, keyCapacity) -> overridden.put(key, configuration(keyCapacity)));
+        return key -> overridden.getOrDefault(key, defaultConfiguration);
+    }
+
+    private BucketConfiguration configuration(long keyCapacity) {
+        return BucketConfiguration.builder()
+                .addLimit(limit -> limit.capacity(keyCapacity).refillGreedy(keyCapacity, refillPeriod))
                 .build();
     }
+
+    // Lock-free CAS keeps virtual threads from pinning their carrier while consuming tokens.
+    private static Bucket localBucket(BucketConfiguration configuration) {
+        LocalBucketBuilder builder = Bucket.builder().withSynchronizationStrategy(SynchronizationStrategy.LOCK_FREE);
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+
+    private static Map<String, Long> parseOverrides(String overrides) {
+        Map<String, Long> capacities = new HashMap<>();
+        for (String override : overrides.split(",")) {
+            if (override.isBlank()) {
+                continue;
+            }
+            String[] parts = override.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid rate limit override: " + override);
+            }
+            capacities.put(parts[0].trim(), Long.parseLong(parts[1].trim()));
+        }
+        return capacities;
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.meetime_test_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableScheduling
+public class SchedulerConfig {
+
+    @Value("${spring.threads.virtual.enabled}")
+    public boolean virtualThreadsEnabled;
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler() {
+        if (virtualThreadsEnabled) {
+            return Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "blocking-virtual");
+        }
+
+        return Schedulers.newBoundedElastic(
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+                "blocking"
+        );
+    }
+}
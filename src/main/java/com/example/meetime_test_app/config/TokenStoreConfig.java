@@ -0,0 +1,71 @@
+package com.example.meetime_test_app.config;
+
+import com.example.meetime_test_app.token.CachingTokenStore;
+import com.example.meetime_test_app.token.FileTokenStore;
+import com.example.meetime_test_app.token.InMemoryTokenStore;
+import com.example.meetime_test_app.token.TokenStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+@Slf4j
+@Configuration
+public class TokenStoreConfig {
+
+    private static final int KEY_BYTES = 32;
+
+    @Value("${integration.hubspot.token-store.backend}")
+    public String backend;
+
+    @Value("${integration.hubspot.token-store.directory}")
+    public String directory;
+
+    // Base64 of a 256-bit AES key, e.g. from "openssl rand -base64 32".
+    @Value("${integration.hubspot.token-store.encryption-key}")
+    public String encryptionKey;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Bean
+    public TokenStore tokenStore() throws IOException {
+        return switch (backend) {
+            case "memory" -> new InMemoryTokenStore();
+            case "file" -> new CachingTokenStore(new FileTokenStore(Path.of(directory), secretKey(), objectMapper));
+            default -> throw new IllegalArgumentException("Unknown token store backend: " + backend);
+        };
+    }
+
+    private SecretKey secretKey() throws IOException {
+        if (!encryptionKey.isBlank()) {
+            return new SecretKeySpec(Base64.getDecoder().decode(encryptionKey.trim()), "AES");
+        }
+
+        // Good enough for a laptop; anywhere else the key should not sit next to the tokens.
+        Path keyFile = Path.of(directory).resolve("token.key");
+        if (!Files.exists(keyFile)) {
+            log.warn("No token encryption key configured, generating one in {}. Set TOKEN_ENCRYPTION_KEY to keep it apart from the tokens.", keyFile);
+            byte[] key = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+            Files.createDirectories(keyFile.getParent());
+            Files.write(keyFile, key);
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(keyFile, PosixFilePermissions.fromString("rw-------"));
+            }
+        }
+        return new SecretKeySpec(Files.readAllBytes(keyFile), "AES");
+    }
+}
@@ -1,14 +1,23 @@
 package com.example.meetime_test_app.config;
 
+import com.example.meetime_test_app.client.ConcurrencyLimitFilter;
+import com.example.meetime_test_app.client.HubSpotResilienceFilter;
 import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
@@ -16,21 +25,96 @@ public class WebClientConfig {
     @Value("${integration.hubspot.api.url}")
     public String apiUrl;
 
+    @Value("${integration.hubspot.http.max-connections}")
+    public int maxConnections;
+
+    @Value("${integration.hubspot.http.pending-acquire-max-count}")
+    public int pendingAcquireMaxCount;
+
+    @Value("${integration.hubspot.http.pending-acquire-timeout}")
+    public Duration pendingAcquireTimeout;
+
+    @Value("${integration.hubspot.http.max-idle-time}")
+    public Duration maxIdleTime;
+
+    @Value("${integration.hubspot.http.max-life-time}")
+    public Duration maxLifeTime;
+
+    @Value("${integration.hubspot.http.evict-in-background}")
+    public Duration evictInBackground;
+
+    @Value("${integration.hubspot.http.connect-timeout}")
+    public Duration connectTimeout;
+
+    @Value("${integration.hubspot.http.response-timeout}")
+    public Duration responseTimeout;
+
+    @Value("${integration.hubspot.http.compression}")
+    public boolean compression;
+
+    @Value("${integration.hubspot.http.http2}")
+    public boolean http2;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider hubSpotConnectionProvider() {
+        return ConnectionProvider.builder("hubspot")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient webClient() {
+    public HttpClient hubSpotHttpClient(ConnectionProvider hubSpotConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(hubSpotConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(compression)
+                .responseTimeout(responseTimeout)
+                .metrics(true, WebClientConfig::metricsUriTag);
+
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return httpClient;
+    }
+
+    @Bean
+    public WebClient webClient(HttpClient hubSpotHttpClient, HubSpotResilienceFilter hubSpotResilienceFilter,
+                               ConcurrencyLimitFilter concurrencyLimitFilter) {
         return WebClient.builder()
                 .baseUrl(apiUrl)
+                .clientConnector(new ReactorClientHttpConnector(hubSpotHttpClient))
                 .filter(authHeaderFilter())
+                .filter(hubSpotResilienceFilter)
+                .filter(concurrencyLimitFilter)
                 .build();
     }
 
     private ExchangeFilterFunction authHeaderFilter() {
         return ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
-            String accessToken = OAuth2TokenHolder.getToken();
-            ClientRequest modifiedRequest = ClientRequest.from(clientRequest)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-                    .build();
-            return Mono.just(modifiedRequest);
+            if (clientRequest.headers().containsKey(HttpHeaders.AUTHORIZATION)) {
+                return Mono.just(clientRequest);
+            }
+
+            return OAuth2TokenHolder.getToken()
+                    .map(accessToken -> ClientRequest.from(clientRequest)
+                            .headers(headers -> headers.setBearerAuth(accessToken))
+                            .build())
+                    .defaultIfEmpty(clientRequest);
         });
     }
+
+    // Ids and access tokens in the path would explode the tag cardinality of the client metrics.
+    private static String metricsUriTag(String uri) {
+        int queryStart = uri.indexOf('?');
+        String path = queryStart >= 0 ? uri.substring(0, queryStart) : uri;
+        return path.replaceAll("/[^/]*\\d[^/]*", "/{id}");
+    }
 }
@@ -1,21 +1,37 @@
 package com.example.meetime_test_app.config;
 
-import com.example.meetime_test_app.interceptor.OAuth2TokenInterceptor;
+import com.example.meetime_test_app.filter.OAuth2TokenFilter;
+import com.example.meetime_test_app.service.TokenManager;
+import com.example.meetime_test_app.service.TokenValidationService;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Set;
 
 @Configuration
-public class WebConfig implements WebMvcConfigurer {
+public class WebConfig {
+
+    @Autowired
+    private TokenValidationService tokenValidationService;
+
+    @Autowired
+    private TokenManager tokenManager;
+
+    @Value("${integration.hubspot.token-validation.timeout}")
+    public Duration validationTimeout;
 
-    @Value("${integration.hubspot.api.url}")
-    public String apiUrl;
+    @Bean
+    public FilterRegistrationBean<OAuth2TokenFilter> oAuth2TokenFilter() {
+        OAuth2TokenFilter filter = new OAuth2TokenFilter(tokenValidationService, tokenManager, validationTimeout, Set.of("/contact/webhook"));
 
-    @Override
-    public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new OAuth2TokenInterceptor(apiUrl))
-                .addPathPatterns("/contact")
-                .excludePathPatterns("/contact/webhook");
+        FilterRegistrationBean<OAuth2TokenFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/contact", "/contact/*");
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,23 @@
 package com.example.meetime_test_app.controller;
 
-import com.example.meetime_test_app.annotation.RateLimited;
-import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.example.meetime_test_app.dto.response.ContactBatchResponse;
+import com.example.meetime_test_app.dto.response.ContactEventResponse;
 import com.example.meetime_test_app.dto.response.CreateContactResponse;
 import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.dto.response.ProjectedContactsResponse;
+import com.example.meetime_test_app.service.ContactBatchService;
+import com.example.meetime_test_app.service.ContactEventService;
 import com.example.meetime_test_app.service.ContactService;
+import com.example.meetime_test_app.service.WebhookService;
 import com.example.meetime_test_app.dto.request.CreateContactRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -21,20 +29,71 @@ public class ContactController {
     @Autowired
     private ContactService contactService;
 
+    @Autowired
+    private ContactBatchService contactBatchService;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private ContactEventService contactEventService;
+
     @GetMapping
-    public Flux<ListContactsResponse> listContacts() {
-        return this.contactService.listContacts();
+    public Flux<ListContactsResponse> listContacts(@RequestParam(required = false) String after) {
+        return this.contactService.listContacts(after);
+    }
+
+    @GetMapping(params = {"properties", "passthrough!=true"})
+    public Flux<ProjectedContactsResponse> listProjectedContacts(@RequestParam(required = false) String after,
+                                                                 @RequestParam List<String> properties) {
+        return this.contactService.listContacts(after, properties);
+    }
+
+    // Returned as a Mono so the token context reaches the upstream call made on the async thread.
+    @GetMapping(params = "passthrough=true")
+    public Mono<ResponseEntity<StreamingResponseBody>> listContactsPassthrough(@RequestParam(required = false) String after,
+                                                                               @RequestParam(required = false) List<String> properties) {
+        return Mono.deferContextual(context -> Mono.just(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> this.contactService.writeContactsPage(after, properties, outputStream, context))));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ListContactsResponse.Contact> streamContacts() {
+        return this.contactService.streamContacts();
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ContactEventResponse>> contactEvents(@RequestParam(defaultValue = "latest") String overflow) {
+        return this.contactEventService.serverSentEvents(overflow);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ContactEventResponse> streamContactEvents(@RequestParam(defaultValue = "latest") String overflow) {
+        return this.contactEventService.events(overflow);
     }
 
-    @RateLimited
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
     public Mono<CreateContactResponse> createContact(@Valid @RequestBody CreateContactRequest createContactRequest) {
         return this.contactService.createContact(createContactRequest);
     }
 
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping(params = "properties")
+    public Mono<ProjectedContactsResponse.Contact> createProjectedContact(@Valid @RequestBody CreateContactRequest createContactRequest,
+                                                                           @RequestParam List<String> properties) {
+        return this.contactService.createContact(createContactRequest, properties);
+    }
+
+    @PostMapping("/batch")
+    public Mono<ContactBatchResponse> createContacts(@RequestBody List<CreateContactRequest> createContactRequests,
+                                                     @RequestParam(defaultValue = "false") boolean upsert) {
+        return this.contactBatchService.createContacts(createContactRequests, upsert);
+    }
+
     @PostMapping("/webhook")
-    public void webHook(@RequestBody List<ContactWebHookRequest> body) {
-        this.contactService.showWebhookBody(body);
+    public void webHook(@RequestBody byte[] body) {
+        this.webhookService.accept(body);
     }
 }
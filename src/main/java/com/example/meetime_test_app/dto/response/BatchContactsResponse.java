@@ -0,0 +1,21 @@
+package com.example.meetime_test_app.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchContactsResponse {
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("results")
+    private List<CreateContactResponse> results;
+
+    @JsonProperty("numErrors")
+    private Integer numErrors;
+}
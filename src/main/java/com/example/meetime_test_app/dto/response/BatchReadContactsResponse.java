@@ -0,0 +1,43 @@
+package com.example.meetime_test_app.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class BatchReadContactsResponse {
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("results")
+    private List<ListContactsResponse.Contact> results;
+
+    @JsonProperty("numErrors")
+    private Integer numErrors;
+
+    // Only present on a 207: the inputs HubSpot could not read, grouped by category.
+    @JsonProperty("errors")
+    private List<BatchError> errors;
+
+    @Setter
+    @Getter
+    public static class BatchError {
+
+        @JsonProperty("status")
+        private String status;
+
+        @JsonProperty("category")
+        private String category;
+
+        @JsonProperty("message")
+        private String message;
+
+        @JsonProperty("context")
+        private Map<String, List<String>> context;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.meetime_test_app.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchUpsertContactsResponse {
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("results")
+    private List<Result> results;
+
+    @Getter
+    @Setter
+    public static class Result extends CreateContactResponse {
+
+        @JsonProperty("new")
+        private boolean newContact;
+    }
+}
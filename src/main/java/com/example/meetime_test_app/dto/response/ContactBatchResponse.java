@@ -0,0 +1,42 @@
+package com.example.meetime_test_app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactBatchResponse {
+
+    private List<Result> results;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        ALREADY_EXISTS,
+        INVALID,
+        FAILED
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+
+        private int index;
+
+        private String email;
+
+        private Status status;
+
+        private String id;
+
+        private List<String> errors;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.meetime_test_app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactEventResponse {
+
+    private String type;
+
+    private String portalId;
+
+    private long contactId;
+
+    private long occurredAt;
+
+    // Absent for deletions.
+    private ListContactsResponse.Contact contact;
+}
@@ -0,0 +1,34 @@
+package com.example.meetime_test_app.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contacts reduced to the properties the caller asked for, keyed by their HubSpot names.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectedContactsResponse {
+    @JsonProperty("results")
+    private List<Contact> results;
+
+    @JsonProperty("paging")
+    private ListContactsResponse.Paging paging;
+
+    @Getter
+    @Setter
+    public static class Contact {
+
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("properties")
+        private Map<String, String> properties;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.meetime_test_app.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SearchContactsResponse {
+
+    @JsonProperty("total")
+    private long total;
+
+    @JsonProperty("results")
+    private List<ListContactsResponse.Contact> results;
+
+    @JsonProperty("paging")
+    private ListContactsResponse.Paging paging;
+}
@@ -0,0 +1,109 @@
+package com.example.meetime_test_app.filter;
+
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.service.TokenManager;
+import com.example.meetime_test_app.service.TokenValidationService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Validates the bearer token of incoming requests without holding a servlet thread while HubSpot
+ * answers: cache hits proceed immediately, everything else is validated on an async context and
+ * re-dispatched once the result is known.
+ */
+public class OAuth2TokenFilter extends OncePerRequestFilter {
+
+    public static final String ACCESS_TOKEN_ATTRIBUTE = OAuth2TokenFilter.class.getName() + ".ACCESS_TOKEN";
+
+    public static final String VALIDATION_ATTRIBUTE = OAuth2TokenFilter.class.getName() + ".VALIDATION";
+
+    /**
+     * Carries the current access token back when the request used one that has since been refreshed.
+     */
+    public static final String REFRESHED_TOKEN_HEADER = "X-Refreshed-Access-Token";
+
+    private final TokenValidationService tokenValidationService;
+
+    private final TokenManager tokenManager;
+
+    private final Duration validationTimeout;
+
+    private final Set<String> excludedPaths;
+
+    public OAuth2TokenFilter(TokenValidationService tokenValidationService, TokenManager tokenManager, Duration validationTimeout, Set<String> excludedPaths) {
+        this.tokenValidationService = tokenValidationService;
+        this.tokenManager = tokenManager;
+        this.validationTimeout = validationTimeout;
+        this.excludedPaths = excludedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return excludedPaths.contains(request.getServletPath());
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            if (request.getAttribute(VALIDATION_ATTRIBUTE) == null) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid Token");
+                return;
+            }
+
+            String accessToken = (String) request.getAttribute(ACCESS_TOKEN_ATTRIBUTE);
+            if (!request.getHeader(HttpHeaders.AUTHORIZATION).equals("Bearer " + accessToken)) {
+                response.setHeader(REFRESHED_TOKEN_HEADER, accessToken);
+            }
+
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String authorizationHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid Token");
+            return;
+        }
+
+        String accessToken = authorizationHeader.substring(7);
+        request.setAttribute(ACCESS_TOKEN_ATTRIBUTE, accessToken);
+
+        TokenValidationResponse cachedValidation = tokenValidationService.getIfCached(accessToken);
+        if (cachedValidation != null) {
+            request.setAttribute(VALIDATION_ATTRIBUTE, cachedValidation);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        // The validation Mono times out first; the container timeout is only a safety net.
+        asyncContext.setTimeout(validationTimeout.multipliedBy(2).toMillis());
+
+        // Tokens we issued are swapped for their account's current one, refreshed if it expires soon.
+        tokenManager.resolve(accessToken)
+                .doOnNext(currentToken -> request.setAttribute(ACCESS_TOKEN_ATTRIBUTE, currentToken))
+                .flatMap(tokenValidationService::validate)
+                .timeout(validationTimeout)
+                .subscribe(
+                        tokenResponse -> request.setAttribute(VALIDATION_ATTRIBUTE, tokenResponse),
+                        ex -> asyncContext.dispatch(),
+                        asyncContext::dispatch
+                );
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.meetime_test_app.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal made of fixed-size memory-mapped segment files. Each record is a 4-byte
+ * length followed by its payload; the length is written last, so a record torn by a crash reads as
+ * the end of the journal. A length of -1 seals a segment and sends readers to the next one.
+ * <p>
+ * Appends may come from any thread. Polling and committing belong to a single reader.
+ */
+public class WebhookJournal implements Closeable {
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private static final int SEGMENT_SEALED = -1;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final boolean forceOnAppend;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private MappedByteBuffer writeBuffer;
+
+    private volatile Position writePosition;
+
+    private volatile Position committedPosition;
+
+    private MappedByteBuffer readBuffer;
+
+    private Position readPosition;
+
+    public WebhookJournal(Path directory, int segmentSize, int maxSegments, boolean forceOnAppend) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.forceOnAppend = forceOnAppend;
+
+        Files.createDirectories(directory);
+
+        this.committedPosition = readCheckpoint();
+        long lastSegment = lastSegment().orElse(committedPosition.segment());
+        this.writeBuffer = mapForWrite(lastSegment);
+        this.writePosition = new Position(lastSegment, findEnd(writeBuffer));
+
+        if (writeBuffer.getInt(writePosition.offset()) == SEGMENT_SEALED) {
+            this.writeBuffer = mapForWrite(lastSegment + 1);
+            this.writePosition = new Position(lastSegment + 1, 0);
+        }
+
+        this.readPosition = committedPosition;
+        this.readBuffer = mapForRead(readPosition.segment());
+    }
+
+    public Position append(byte[] payload) throws IOException {
+        int recordSize = LENGTH_BYTES + payload.length;
+
+        // Every segment keeps room for the seal marker after its last record.
+        if (recordSize + LENGTH_BYTES > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a journal segment");
+        }
+
+        appendLock.lock();
+        try {
+            Position position = writePosition;
+
+            if (position.offset() + recordSize + LENGTH_BYTES > segmentSize) {
+                position = roll(position);
+            }
+
+            writeBuffer.put(position.offset() + LENGTH_BYTES, payload);
+            writeBuffer.putInt(position.offset(), payload.length);
+
+            if (forceOnAppend) {
+                writeBuffer.force(position.offset(), recordSize);
+            }
+
+            Position next = new Position(position.segment(), position.offset() + recordSize);
+            writePosition = next;
+            return next;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public List<Entry> poll(int maxEntries) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Position limit = writePosition;
+
+        while (entries.size() < maxEntries && readPosition.compareTo(limit) < 0) {
+            int length = readBuffer.getInt(readPosition.offset());
+
+            if (length == SEGMENT_SEALED) {
+                readPosition = new Position(readPosition.segment() + 1, 0);
+                readBuffer = mapForRead(readPosition.segment());
+                continue;
+            }
+
+            byte[] payload = new byte[length];
+            readBuffer.get(readPosition.offset() + LENGTH_BYTES, payload);
+            readPosition = new Position(readPosition.segment(), readPosition.offset() + LENGTH_BYTES + length);
+            entries.add(new Entry(payload, readPosition));
+        }
+
+        return entries;
+    }
+
+    public void commit(Position position) throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(position.segment())
+                .putInt(position.offset());
+
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(temporary, checkpoint.array());
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Position previous = committedPosition;
+        committedPosition = position;
+
+        for (long segment = previous.segment(); segment < position.segment(); segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+
+    public long pendingSegments() {
+        return writePosition.segment() - committedPosition.segment() + 1;
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            writeBuffer.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private Position roll(Position position) throws IOException {
+        if (position.segment() + 2 - committedPosition.segment() > maxSegments) {
+            throw new JournalFullException(maxSegments);
+        }
+
+        writeBuffer.putInt(position.offset(), SEGMENT_SEALED);
+        writeBuffer.force();
+
+        writeBuffer = mapForWrite(position.segment() + 1);
+        Position next = new Position(position.segment() + 1, 0);
+        writePosition = next;
+        return next;
+    }
+
+    private int findEnd(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + LENGTH_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + LENGTH_BYTES + length > segmentSize) {
+                return offset;
+            }
+            offset += LENGTH_BYTES + length;
+        }
+        return offset;
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return new Position(firstSegment().orElse(0), 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        return new Position(buffer.getLong(), buffer.getInt());
+    }
+
+    private OptionalLong firstSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment).mapToLong(this::segmentId).min();
+        }
+    }
+
+    private OptionalLong lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment).mapToLong(this::segmentId).max();
+        }
+    }
+
+    private boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(SEGMENT_SUFFIX);
+    }
+
+    private long segmentId(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer mapForWrite(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private MappedByteBuffer mapForRead(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+        }
+    }
+
+    public record Position(long segment, int offset) implements Comparable<Position> {
+
+        @Override
+        public int compareTo(Position other) {
+            int bySegment = Long.compare(segment, other.segment);
+            return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+        }
+    }
+
+    public record Entry(byte[] payload, Position next) {
+    }
+
+    public static class JournalFullException extends IOException {
+
+        public JournalFullException(int maxSegments) {
+            super("Webhook journal reached its limit of " + maxSegments + " unprocessed segments");
+        }
+    }
+}
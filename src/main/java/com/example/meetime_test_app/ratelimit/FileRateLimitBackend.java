@@ -0,0 +1,138 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Token buckets kept in one small file per key and updated under an OS file lock, so that several
+ * processes on one host, or the tests, can share a budget without any external service. Only the
+ * first bandwidth of a configuration is applied, refilled greedily. Waiting for the file lock is
+ * blocking, so updates run on the given scheduler.
+ */
+public class FileRateLimitBackend implements RateLimitBackend {
+
+    private static final int STATE_BYTES = Double.BYTES + Long.BYTES;
+
+    private final Path directory;
+
+    private final Function<String, BucketConfiguration> configurations;
+
+    private final Scheduler scheduler;
+
+    // File locks are held per process, so threads of this process queue on a lock stripe first.
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+
+    public FileRateLimitBackend(Path directory, Function<String, BucketConfiguration> configurations, Scheduler scheduler) {
+        this.directory = directory;
+        this.configurations = configurations;
+        this.scheduler = scheduler;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Mono<Long> tryConsume(String key) {
+        return Mono.fromCallable(() -> consume(key)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+        return Mono.fromCallable(() -> update(key, bandwidth(key), tokens -> Math.min(maxTokens, (long) Math.floor(tokens))))
+                .subscribeOn(scheduler);
+    }
+
+    private long consume(String key) {
+        Bandwidth bandwidth = bandwidth(key);
+        double[] missing = new double[1];
+
+        long consumed = update(key, bandwidth, tokens -> {
+            if (tokens >= 1) {
+                return 1;
+            }
+            missing[0] = 1 - tokens;
+            return 0;
+        });
+
+        if (consumed == 1) {
+            return 0;
+        }
+        return (long) Math.ceil(missing[0] * bandwidth.getRefillPeriodNanos() / bandwidth.getRefillTokens());
+    }
+
+    private long update(String key, Bandwidth bandwidth, TokenDecision decision) {
+        ReentrantLock stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+        stripe.lock();
+        try (FileChannel channel = FileChannel.open(statePath(key), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            long now = System.currentTimeMillis();
+            ByteBuffer state = ByteBuffer.allocate(STATE_BYTES);
+
+            double tokens;
+            if (channel.read(state, 0) == STATE_BYTES) {
+                state.flip();
+                tokens = state.getDouble();
+                long refilledAt = state.getLong();
+                double refill = (double) Math.max(0, now - refilledAt) * bandwidth.getRefillTokens()
+                        / TimeUnit.NANOSECONDS.toMillis(bandwidth.getRefillPeriodNanos());
+                tokens = Math.min(bandwidth.getCapacity(), tokens + refill);
+            } else {
+                tokens = bandwidth.getCapacity();
+            }
+
+            long consumed = decision.consume(tokens);
+
+            state.clear();
+            state.putDouble(tokens - consumed).putLong(now).flip();
+            channel.write(state, 0);
+            return consumed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private Bandwidth bandwidth(String key) {
+        return configurations.apply(key).getBandwidths()[0];
+    }
+
+    private Path statePath(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + ".bucket");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TokenDecision {
+
+        long consume(double availableTokens);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.github.bucket4j.Bucket;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * One bucket per rate limit key, created on first use. Lookups of existing keys are a plain
+ * {@link ConcurrentHashMap#get}. Once the registry outgrows its maximum size, buckets idle for longer
+ * than the idle timeout are dropped first, then the least recently used ones.
+ * <p>
+ * With an idle timeout of at least one refill period, a dropped bucket would have been full anyway,
+ * so evicting it does not hand out extra tokens.
+ */
+public class KeyedBucketRegistry {
+
+    private static final long TOUCH_RESOLUTION_NANOS = Duration.ofMillis(10).toNanos();
+
+    private final int maximumSize;
+
+    private final long idleTimeoutNanos;
+
+    private final Function<String, Bucket> bucketFactory;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public KeyedBucketRegistry(int maximumSize, Duration idleTimeout, Function<String, Bucket> bucketFactory) {
+        this.maximumSize = maximumSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.bucketFactory = bucketFactory;
+    }
+
+    public Bucket get(String key) {
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key, unused -> new Entry(bucketFactory.apply(key), now));
+            if (entries.size() > maximumSize) {
+                evict(now);
+            }
+        } else if (now - entry.lastAccess > TOUCH_RESOLUTION_NANOS) {
+            // Hot keys skip the write so that threads sharing a bucket do not keep bouncing its cache line.
+            entry.lastAccess = now;
+        }
+
+        return entry.bucket;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Only one thread evicts at a time; the others go on with a registry briefly over its size.
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            entries.entrySet().removeIf(entry -> {
+                boolean idle = now - entry.getValue().lastAccess > idleTimeoutNanos;
+                if (idle) {
+                    evictions.increment();
+                }
+                return idle;
+            });
+
+            if (entries.size() <= maximumSize) {
+                return;
+            }
+
+            // Drop down to 90% so that a registry at its limit does not sort on every new key.
+            List<Map.Entry<String, Entry>> byLastAccess = new ArrayList<>(entries.entrySet());
+            byLastAccess.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            int excess = entries.size() - maximumSize * 9 / 10;
+            for (int i = 0; i < excess && i < byLastAccess.size(); i++) {
+                if (entries.remove(byLastAccess.get(i).getKey(), byLastAccess.get(i).getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Bucket bucket;
+
+        private volatile long lastAccess;
+
+        private Entry(Bucket bucket, long lastAccess) {
+            this.bucket = bucket;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
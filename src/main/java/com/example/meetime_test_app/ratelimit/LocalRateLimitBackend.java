@@ -0,0 +1,37 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+    private final KeyedBucketRegistry buckets;
+
+    public LocalRateLimitBackend(KeyedBucketRegistry buckets) {
+        this.buckets = buckets;
+    }
+
+    // In-memory and lock-free: cheap enough to run on the subscribing thread.
+    @Override
+    public Mono<Long> tryConsume(String key) {
+        return Mono.fromSupplier(() -> {
+            ConsumptionProbe probe = buckets.get(key).tryConsumeAndReturnRemaining(1);
+            return probe.isConsumed() ? 0 : probe.getNanosToWaitForRefill();
+        });
+    }
+
+    @Override
+    public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+        return Mono.fromSupplier(() -> buckets.get(key).tryConsumeAsMuchAsPossible(maxTokens));
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("hubspot.rate-limit.keys", buckets, KeyedBucketRegistry::size).register(registry);
+        FunctionCounter.builder("hubspot.rate-limit.evictions", buckets, KeyedBucketRegistry::getEvictions).register(registry);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes tokens from a shared backend in small batches and hands them out locally, so that most
+ * requests do not pay a round trip to the shared store. A node never holds more than one batch per
+ * key, and unused tokens are dropped after {@code maxAge} instead of being kept from other nodes.
+ * The reserve lock only covers local bookkeeping; refills from the shared backend happen outside it.
+ */
+public class PrefetchingRateLimitBackend implements RateLimitBackend {
+
+    private static final int MAX_RESERVES = 10_000;
+
+    private final RateLimitBackend delegate;
+
+    private final long batchSize;
+
+    private final long maxAgeNanos;
+
+    private final Map<String, Reserve> reserves = new ConcurrentHashMap<>();
+
+    private final LongAdder remoteCalls = new LongAdder();
+
+    public PrefetchingRateLimitBackend(RateLimitBackend delegate, long batchSize, Duration maxAge) {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    @Override
+    public Mono<Long> tryConsume(String key) {
+        return Mono.defer(() -> {
+            Reserve reserve = reserve(key);
+            Mono<Void> refill;
+
+            reserve.lock.lock();
+            try {
+                long now = System.nanoTime();
+                if (reserve.tokens > 0 && now - reserve.fetchedAt <= maxAgeNanos) {
+                    reserve.tokens--;
+                    return Mono.just(0L);
+                }
+
+                // The shared backend already said when tokens come back: no need to ask again before that.
+                if (reserve.waiting && now - reserve.retryAt < 0) {
+                    return Mono.just(reserve.retryAt - now);
+                }
+
+                // Callers that find the reserve empty share a single refill instead of each asking.
+                if (reserve.refill == null) {
+                    reserve.refill = refill(key, reserve).cache();
+                }
+                refill = reserve.refill;
+            } finally {
+                reserve.lock.unlock();
+            }
+
+            return refill.then(tryConsume(key));
+        });
+    }
+
+    @Override
+    public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+        return Mono.defer(() -> {
+            remoteCalls.increment();
+            return delegate.tryConsumeUpTo(key, maxTokens);
+        });
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        delegate.bindTo(registry);
+        FunctionCounter.builder("hubspot.rate-limit.backend.calls", remoteCalls, LongAdder::sum).register(registry);
+    }
+
+    private Reserve reserve(String key) {
+        Reserve reserve = reserves.get(key);
+        if (reserve != null) {
+            return reserve;
+        }
+        // Reserves are only a cache of at most one batch per key, so a crowded map is simply reset.
+        if (reserves.size() >= MAX_RESERVES) {
+            reserves.clear();
+        }
+        return reserves.computeIfAbsent(key, unused -> new Reserve());
+    }
+
+    // Talks to the shared backend without holding the reserve lock, which is only taken again to
+    // publish the outcome. The in-flight refill is cleared before its callers retry.
+    private Mono<Void> refill(String key, Reserve reserve) {
+        return tryConsumeUpTo(key, batchSize)
+                .flatMap(fetched -> {
+                    if (fetched > 0) {
+                        return Mono.just(new Refill(fetched, 0));
+                    }
+                    // Nothing left to prefetch: ask for a single token, which also tells how long to wait.
+                    remoteCalls.increment();
+                    return delegate.tryConsume(key).map(nanosToWait -> new Refill(nanosToWait == 0 ? 1 : 0, nanosToWait));
+                })
+                .doOnNext(refill -> {
+                    reserve.lock.lock();
+                    try {
+                        long now = System.nanoTime();
+                        reserve.tokens = refill.tokens();
+                        reserve.fetchedAt = now;
+                        reserve.waiting = refill.nanosToWait() > 0;
+                        reserve.retryAt = now + refill.nanosToWait();
+                    } finally {
+                        reserve.lock.unlock();
+                    }
+                })
+                .doOnTerminate(() -> {
+                    reserve.lock.lock();
+                    try {
+                        reserve.refill = null;
+                    } finally {
+                        reserve.lock.unlock();
+                    }
+                })
+                .then();
+    }
+
+    private record Refill(long tokens, long nanosToWait) {
+    }
+
+    private static final class Reserve {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Mono<Void> refill;
+
+        private long tokens;
+
+        private long fetchedAt;
+
+        private boolean waiting;
+
+        private long retryAt;
+    }
+}
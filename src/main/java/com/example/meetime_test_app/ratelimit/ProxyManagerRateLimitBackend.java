@@ -0,0 +1,65 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.AsyncProxyManager;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Keeps the buckets in whatever shared store the {@link ProxyManager} talks to (Redis, JDBC,
+ * Hazelcast...), so every node of the cluster draws from the same per-account budget. Stores with
+ * an async client are called through Bucket4j's async proxies, so no thread waits on the round
+ * trip; the others (e.g. JDBC) are called on the given scheduler.
+ */
+public class ProxyManagerRateLimitBackend implements RateLimitBackend {
+
+    private final ProxyManager<String> proxyManager;
+
+    private final AsyncProxyManager<String> asyncProxyManager;
+
+    private final Function<String, BucketConfiguration> configurations;
+
+    private final Scheduler blockingScheduler;
+
+    public ProxyManagerRateLimitBackend(ProxyManager<String> proxyManager, Function<String, BucketConfiguration> configurations,
+                                        Scheduler blockingScheduler) {
+        this.proxyManager = proxyManager;
+        this.asyncProxyManager = proxyManager.isAsyncModeSupported() ? proxyManager.asAsync() : null;
+        this.configurations = configurations;
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    @Override
+    public Mono<Long> tryConsume(String key) {
+        Mono<ConsumptionProbe> probe = asyncProxyManager != null
+                ? Mono.fromFuture(() -> asyncBucket(key).tryConsumeAndReturnRemaining(1))
+                : Mono.fromCallable(() -> bucket(key).tryConsumeAndReturnRemaining(1))
+                        .subscribeOn(blockingScheduler);
+        return probe.map(consumption -> consumption.isConsumed() ? 0 : consumption.getNanosToWaitForRefill());
+    }
+
+    @Override
+    public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+        if (asyncProxyManager != null) {
+            return Mono.fromFuture(() -> asyncBucket(key).tryConsumeAsMuchAsPossible(maxTokens));
+        }
+        return Mono.fromCallable(() -> bucket(key).tryConsumeAsMuchAsPossible(maxTokens))
+                .subscribeOn(blockingScheduler);
+    }
+
+    // Proxies are plain handles; the configuration is only read when the key is not stored yet.
+    private BucketProxy bucket(String key) {
+        return proxyManager.builder().build(key, () -> configurations.apply(key));
+    }
+
+    private AsyncBucketProxy asyncBucket(String key) {
+        return asyncProxyManager.builder().build(key, () -> CompletableFuture.completedFuture(configurations.apply(key)));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Mono;
+
+/**
+ * Where rate limit tokens are kept: in this process, in files shared by the processes of one host,
+ * or in a Bucket4j {@code ProxyManager} shared by the whole cluster. Calls are made from Reactor and
+ * Netty threads, so a backend that has to block or go over the network does it without holding the
+ * subscribing thread.
+ */
+public interface RateLimitBackend extends MeterBinder {
+
+    /**
+     * Takes one token of the key. Emits 0 when it was taken, otherwise the nanoseconds to wait
+     * until one is available.
+     */
+    Mono<Long> tryConsume(String key);
+
+    /**
+     * Takes as many tokens of the key as are available, up to {@code maxTokens}, and emits how
+     * many were taken.
+     */
+    Mono<Long> tryConsumeUpTo(String key, long maxTokens);
+
+    @Override
+    default void bindTo(@NonNull MeterRegistry registry) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.meetime_test_app.ratelimit;
+
+/**
+ * Order in which waiting calls get tokens, and how much of the waiting queue each class may fill, so
+ * that background work cannot crowd out user requests.
+ */
+public enum RateLimitPriority {
+
+    // Single reads and writes a user is waiting on.
+    HIGH(1.0),
+    // Bulk imports, which a user started but which can take their time.
+    NORMAL(0.8),
+    // Syncs and webhook hydration, which nobody waits on.
+    LOW(0.5);
+
+    private final double queueShare;
+
+    RateLimitPriority(double queueShare) {
+        this.queueShare = queueShare;
+    }
+
+    public int admissionLimit(int queueCapacity) {
+        return (int) Math.ceil(queueCapacity * queueShare);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.meetime_test_app.ratelimit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds calls that found their bucket empty until a token is available, instead of rejecting them.
+ * Waiting takes no thread: each key with waiters has a single drain in flight, which asks the backend
+ * for one token at a time and otherwise arms a timer for the moment the backend says the next token
+ * arrives. Waiters are served by priority, then arrival. A call is rejected with 429 when the queue
+ * has no room for its priority or when it would wait longer than {@code maxWait}.
+ */
+public class RateLimitWaitQueue {
+
+    private static final Comparator<Waiter> ORDER = Comparator
+            .comparing(Waiter::priority)
+            .thenComparingLong(Waiter::sequence);
+
+    private final RateLimitBackend backend;
+
+    private final int capacity;
+
+    private final long maxWaitNanos;
+
+    private final Scheduler timer;
+
+    private final Map<String, KeyQueue> queues = new ConcurrentHashMap<>();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    public RateLimitWaitQueue(RateLimitBackend backend, int capacity, Duration maxWait, Scheduler timer) {
+        this.backend = backend;
+        this.capacity = capacity;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.timer = timer;
+    }
+
+    public Mono<Void> acquire(String key, RateLimitPriority priority) {
+        return Mono.defer(() -> {
+            KeyQueue existing = queues.get(key);
+            if (existing != null && !existing.isIdle()) {
+                return enqueue(key, priority, 0);
+            }
+
+            // Nobody is ahead: take a token right away if there is one.
+            return backend.tryConsume(key).flatMap(nanosToWait -> {
+                if (nanosToWait == 0) {
+                    return Mono.empty();
+                }
+                if (nanosToWait > maxWaitNanos) {
+                    rejected.increment();
+                    return Mono.error(tooManyRequests("Rate limit exceeded, try again later."));
+                }
+                return enqueue(key, priority, nanosToWait);
+            });
+        });
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    private Mono<Void> enqueue(String key, RateLimitPriority priority, long nanosToWait) {
+        return Mono.create(sink -> {
+            while (true) {
+                KeyQueue queue = queues.computeIfAbsent(key, unused -> new KeyQueue());
+                queue.lock.lock();
+                try {
+                    // Lost a race with the last waiter leaving: this queue is gone from the map.
+                    if (queue.removed) {
+                        continue;
+                    }
+
+                    if (waiting.get() >= priority.admissionLimit(capacity)) {
+                        rejected.increment();
+                        break;
+                    }
+
+                    Waiter waiter = new Waiter(priority, sequence.incrementAndGet(), System.nanoTime() + maxWaitNanos, sink);
+                    queue.waiters.add(waiter);
+                    waiting.incrementAndGet();
+                    sink.onCancel(() -> cancel(queue, waiter));
+                    if (!queue.draining) {
+                        queue.draining = true;
+                        scheduleDrain(key, queue, nanosToWait);
+                    }
+                    return;
+                } finally {
+                    queue.lock.unlock();
+                }
+            }
+            sink.error(tooManyRequests("Too many requests are waiting for the rate limit, try again later."));
+        });
+    }
+
+    private void cancel(KeyQueue queue, Waiter waiter) {
+        queue.lock.lock();
+        try {
+            if (queue.waiters.remove(waiter)) {
+                waiting.decrementAndGet();
+            }
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+
+    private void scheduleDrain(String key, KeyQueue queue, long delayNanos) {
+        timer.schedule(() -> drain(key, queue), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Only bookkeeping happens under the queue lock; the backend is asked once it is released.
+    private void drain(String key, KeyQueue queue) {
+        List<Runnable> completions = new ArrayList<>();
+        boolean idle;
+
+        queue.lock.lock();
+        try {
+            long now = System.nanoTime();
+            queue.waiters.removeIf(waiter -> {
+                if (now - waiter.deadline() < 0) {
+                    return false;
+                }
+                waiting.decrementAndGet();
+                timedOut.increment();
+                completions.add(() -> waiter.sink().error(tooManyRequests("Rate limit exceeded, try again later.")));
+                return true;
+            });
+
+            idle = queue.waiters.isEmpty();
+            if (idle) {
+                queue.draining = false;
+                queue.removed = queues.remove(key, queue) || queue.removed;
+            }
+        } finally {
+            queue.lock.unlock();
+        }
+        completions.forEach(Runnable::run);
+
+        if (!idle) {
+            backend.tryConsume(key).subscribe(nanosToWait -> served(key, queue, nanosToWait), error -> failAll(key, queue, error));
+        }
+    }
+
+    private void served(String key, KeyQueue queue, long nanosToWait) {
+        Waiter served = null;
+        long delay = 0;
+
+        queue.lock.lock();
+        try {
+            if (nanosToWait == 0) {
+                // When every waiter left while the backend was asked, the token is simply lost.
+                served = queue.waiters.poll();
+                if (served != null) {
+                    waiting.decrementAndGet();
+                }
+            } else {
+                long now = System.nanoTime();
+                long earliestDeadline = queue.waiters.stream().mapToLong(Waiter::deadline).min().orElse(now);
+                delay = Math.max(0, Math.min(nanosToWait, earliestDeadline - now));
+            }
+        } finally {
+            queue.lock.unlock();
+        }
+
+        if (served != null) {
+            served.sink().success();
+        }
+        scheduleDrain(key, queue, delay);
+    }
+
+    private void failAll(String key, KeyQueue queue, Throwable error) {
+        List<Waiter> failed;
+
+        queue.lock.lock();
+        try {
+            failed = new ArrayList<>(queue.waiters);
+            queue.waiters.clear();
+            waiting.addAndGet(-failed.size());
+            queue.draining = false;
+            queue.removed = queues.remove(key, queue) || queue.removed;
+        } finally {
+            queue.lock.unlock();
+        }
+        failed.forEach(waiter -> waiter.sink().error(error));
+    }
+
+    private static ResponseStatusException tooManyRequests(String reason) {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, reason);
+    }
+
+    private record Waiter(RateLimitPriority priority, long sequence, long deadline, MonoSink<Void> sink) {
+    }
+
+    private static final class KeyQueue {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(ORDER);
+
+        private boolean draining;
+
+        private boolean removed;
+
+        private boolean isIdle() {
+            lock.lock();
+            try {
+                return waiters.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.meetime_test_app.service;
 
 import com.example.meetime_test_app.builder.AuthRequestBuilder;
 import com.example.meetime_test_app.dto.response.AuthResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -11,6 +12,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+@Slf4j
 @Service
 public class AuthService {
 
@@ -26,6 +28,9 @@ public class AuthService {
     @Autowired
     private WebClient webClient;
 
+    @Autowired
+    private TokenManager tokenManager;
+
     public String endpoint = "/oauth/v1/token";
 
     public Mono<AuthResponse> authenticate(String code) {
@@ -36,10 +41,24 @@ public class AuthService {
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
                 .bodyValue(body)
                 .retrieve()
-                .onStatus(HttpStatusCode::isError, response ->
+                .onStatus(HttpStatusCode::is4xxClientError, response ->
                         Mono.error(new ResponseStatusException(response.statusCode(), "Invalid code"))
                 )
-                .bodyToMono(AuthResponse.class);
+                .onStatus(HttpStatusCode::is5xxServerError, response ->
+                        Mono.error(new ResponseStatusException(HttpStatus.BAD_GATEWAY, "HubSpot failed to exchange the code"))
+                )
+                .bodyToMono(AuthResponse.class)
+                .flatMap(this::registerTokens);
+
+    }
 
+    // The caller gets its tokens either way; without registration they just won't be refreshed for it.
+    private Mono<AuthResponse> registerTokens(AuthResponse authResponse) {
+        return tokenManager.register(authResponse)
+                .onErrorResume(ex -> {
+                    log.warn("Could not register the tokens of a completed OAuth flow", ex);
+                    return Mono.empty();
+                })
+                .thenReturn(authResponse);
     }
 }
@@ -0,0 +1,238 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.builder.ContactRequestBuilder;
+import com.example.meetime_test_app.dto.request.CreateContactRequest;
+import com.example.meetime_test_app.dto.response.BatchContactsResponse;
+import com.example.meetime_test_app.dto.response.BatchUpsertContactsResponse;
+import com.example.meetime_test_app.dto.response.ContactBatchResponse;
+import com.example.meetime_test_app.dto.response.CreateContactResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class ContactBatchService {
+
+    @Autowired
+    private WebClient webClient;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${integration.hubspot.contacts.batch.max-items}")
+    public int maxItems;
+
+    @Value("${integration.hubspot.contacts.batch.chunk-size}")
+    public int chunkSize;
+
+    @Value("${integration.hubspot.contacts.batch.parallelism}")
+    public int parallelism;
+
+    public String endpoint = "/crm/v3/objects/contacts/batch";
+
+    public Mono<ContactBatchResponse> createContacts(List<CreateContactRequest> createContactRequests, boolean upsert) {
+        if (createContactRequests.size() > maxItems) {
+            return Mono.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "A batch accepts at most " + maxItems + " contacts"));
+        }
+
+        ContactBatchResponse.Result[] results = new ContactBatchResponse.Result[createContactRequests.size()];
+        List<Integer> accepted = validate(createContactRequests, results);
+
+        return Flux.fromIterable(chunks(accepted))
+                .flatMap(chunk -> upsert ? upsertChunk(createContactRequests, chunk) : createChunk(createContactRequests, chunk), parallelism)
+                .doOnNext(result -> results[result.getIndex()] = result)
+                .then(Mono.fromSupplier(() -> new ContactBatchResponse(Arrays.asList(results))));
+    }
+
+    private List<Integer> validate(List<CreateContactRequest> createContactRequests, ContactBatchResponse.Result[] results) {
+        List<Integer> accepted = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+
+        for (int index = 0; index < createContactRequests.size(); index++) {
+            CreateContactRequest createContactRequest = createContactRequests.get(index);
+
+            if (createContactRequest == null) {
+                results[index] = result(index, null, ContactBatchResponse.Status.INVALID, null, List.of("contact must not be null"));
+                continue;
+            }
+
+            List<String> errors = validator.validate(createContactRequest).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .toList();
+
+            if (errors.isEmpty() && !emails.add(createContactRequest.getEmail().toLowerCase())) {
+                errors = List.of("email is duplicated in this batch");
+            }
+
+            if (errors.isEmpty()) {
+                accepted.add(index);
+            } else {
+                results[index] = result(index, createContactRequest.getEmail(), ContactBatchResponse.Status.INVALID, null, errors);
+            }
+        }
+
+        return accepted;
+    }
+
+    private Flux<ContactBatchResponse.Result> createChunk(List<CreateContactRequest> createContactRequests, List<Integer> chunk) {
+        List<String> emails = chunk.stream().map(index -> createContactRequests.get(index).getEmail()).toList();
+
+        return rateLimitService.limit(RateLimitPriority.NORMAL, webClient.post()
+                        .uri(endpoint + "/read")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(ContactRequestBuilder.buildBatchReadContactsByEmail(emails))
+                        .retrieve()
+                        .bodyToMono(BatchContactsResponse.class))
+                .flatMapMany(existing -> {
+                    Map<String, CreateContactResponse> existingByEmail = byEmail(existing.getResults());
+                    List<ContactBatchResponse.Result> results = new ArrayList<>();
+                    List<Integer> missing = new ArrayList<>();
+
+                    for (Integer index : chunk) {
+                        String email = createContactRequests.get(index).getEmail();
+                        CreateContactResponse contact = existingByEmail.get(email.toLowerCase());
+                        if (contact != null) {
+                            results.add(result(index, email, ContactBatchResponse.Status.ALREADY_EXISTS, contact.getId(), null));
+                        } else {
+                            missing.add(index);
+                        }
+                    }
+
+                    return Flux.fromIterable(results).concatWith(createMissing(createContactRequests, missing));
+                })
+                .onErrorResume(ex -> failed(createContactRequests, chunk, ex));
+    }
+
+    private Flux<ContactBatchResponse.Result> createMissing(List<CreateContactRequest> createContactRequests, List<Integer> missing) {
+        if (missing.isEmpty()) {
+            return Flux.empty();
+        }
+
+        List<CreateContactRequest> inputs = missing.stream().map(createContactRequests::get).toList();
+
+        return rateLimitService.limit(RateLimitPriority.NORMAL, webClient.post()
+                        .uri(endpoint + "/create")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(ContactRequestBuilder.buildBatchCreateContacts(inputs))
+                        .retrieve()
+                        .bodyToMono(BatchContactsResponse.class))
+                .flatMapMany(created -> {
+                    Map<String, CreateContactResponse> createdByEmail = byEmail(created.getResults());
+                    return Flux.fromIterable(missing).map(index -> {
+                        String email = createContactRequests.get(index).getEmail();
+                        CreateContactResponse contact = createdByEmail.get(email.toLowerCase());
+                        return contact != null
+                                ? result(index, email, ContactBatchResponse.Status.CREATED, contact.getId(), null)
+                                : result(index, email, ContactBatchResponse.Status.FAILED, null, List.of("HubSpot did not return this contact"));
+                    });
+                })
+                // Someone created one of these contacts between the read and the create: settle each item on its own.
+                .onErrorResume(ex -> isConflict(ex), ex -> Flux.fromIterable(missing)
+                        .flatMap(index -> createIndividually(createContactRequests, index)))
+                .onErrorResume(ex -> failed(createContactRequests, missing, ex));
+    }
+
+    private Mono<ContactBatchResponse.Result> createIndividually(List<CreateContactRequest> createContactRequests, int index) {
+        CreateContactRequest createContactRequest = createContactRequests.get(index);
+
+        return contactService.createContactIndividually(createContactRequest)
+                .map(contact -> result(index, createContactRequest.getEmail(), ContactBatchResponse.Status.CREATED, contact.getId(), null))
+                .onErrorResume(ex -> Mono.just(isConflict(ex)
+                        ? result(index, createContactRequest.getEmail(), ContactBatchResponse.Status.ALREADY_EXISTS, null, null)
+                        : result(index, createContactRequest.getEmail(), ContactBatchResponse.Status.FAILED, null, List.of(errorMessage(ex)))));
+    }
+
+    private Flux<ContactBatchResponse.Result> upsertChunk(List<CreateContactRequest> createContactRequests, List<Integer> chunk) {
+        List<CreateContactRequest> inputs = chunk.stream().map(createContactRequests::get).toList();
+
+        return rateLimitService.limit(RateLimitPriority.NORMAL, webClient.post()
+                        .uri(endpoint + "/upsert")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(ContactRequestBuilder.buildBatchUpsertContacts(inputs))
+                        .retrieve()
+                        .bodyToMono(BatchUpsertContactsResponse.class))
+                .flatMapMany(upserted -> {
+                    Map<String, BatchUpsertContactsResponse.Result> upsertedByEmail = byEmail(upserted.getResults());
+                    return Flux.fromIterable(chunk).map(index -> {
+                        String email = createContactRequests.get(index).getEmail();
+                        BatchUpsertContactsResponse.Result contact = upsertedByEmail.get(email.toLowerCase());
+                        if (contact == null) {
+                            return result(index, email, ContactBatchResponse.Status.FAILED, null, List.of("HubSpot did not return this contact"));
+                        }
+                        ContactBatchResponse.Status status = contact.isNewContact() ? ContactBatchResponse.Status.CREATED : ContactBatchResponse.Status.UPDATED;
+                        return result(index, email, status, contact.getId(), null);
+                    });
+                })
+                .onErrorResume(ex -> failed(createContactRequests, chunk, ex));
+    }
+
+    private Flux<ContactBatchResponse.Result> failed(List<CreateContactRequest> createContactRequests, List<Integer> chunk, Throwable ex) {
+        return Flux.fromIterable(chunk)
+                .map(index -> result(index, createContactRequests.get(index).getEmail(), ContactBatchResponse.Status.FAILED, null, List.of(errorMessage(ex))));
+    }
+
+    private <C extends CreateContactResponse> Map<String, C> byEmail(List<C> contacts) {
+        Map<String, C> contactsByEmail = new HashMap<>();
+        if (contacts != null) {
+            for (C contact : contacts) {
+                if (contact.getProperties() != null && contact.getProperties().getEmail() != null) {
+                    contactsByEmail.put(contact.getProperties().getEmail().toLowerCase(), contact);
+                }
+            }
+        }
+        return contactsByEmail;
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < indexes.size(); start += chunkSize) {
+            chunks.add(indexes.subList(start, Math.min(start + chunkSize, indexes.size())));
+        }
+        return chunks;
+    }
+
+    private boolean isConflict(Throwable ex) {
+        if (ex instanceof ResponseStatusException statusException) {
+            return statusException.getStatusCode().value() == HttpStatus.CONFLICT.value();
+        }
+        return ex instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().value() == HttpStatus.CONFLICT.value();
+    }
+
+    private String errorMessage(Throwable ex) {
+        if (ex instanceof ResponseStatusException statusException && statusException.getReason() != null) {
+            return statusException.getReason();
+        }
+        return ex.getMessage();
+    }
+
+    private static ContactBatchResponse.Result result(int index, String email, ContactBatchResponse.Status status, String id, List<String> errors) {
+        return new ContactBatchResponse.Result(index, email, status, id, errors);
+    }
+}
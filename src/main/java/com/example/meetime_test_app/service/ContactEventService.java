@@ -0,0 +1,87 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.ContactEventResponse;
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams the hydrated contact events of the caller's portal. Every subscriber gets its own bounded
+ * buffer that absorbs bursts; once it is full, events are dropped for that subscriber only, either
+ * the newest ("drop") or the oldest ("latest"). Spring MVC's emitter writes each event on its own
+ * async executor and only then asks for the next one, so a slow client never holds up webhook
+ * ingestion, the other subscribers, or the scheduler shared by blocking work.
+ */
+@Service
+public class ContactEventService implements MeterBinder {
+
+    @Value("${integration.hubspot.contacts.events.buffer-size}")
+    public int bufferSize;
+
+    @Value("${integration.hubspot.contacts.events.heartbeat}")
+    public Duration heartbeat;
+
+    @Autowired
+    private ContactHydrationService contactHydrationService;
+
+    @Autowired
+    private TokenValidationService tokenValidationService;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public Flux<ContactEventResponse> events(String overflow) {
+        return bufferedEvents(overflow);
+    }
+
+    // Heartbeat comments keep idle connections from being closed by proxies on the way.
+    public Flux<ServerSentEvent<ContactEventResponse>> serverSentEvents(String overflow) {
+        Flux<ServerSentEvent<ContactEventResponse>> events = bufferedEvents(overflow)
+                .map(event -> ServerSentEvent.builder(event).event(event.getType()).build());
+        Flux<ServerSentEvent<ContactEventResponse>> heartbeats = Flux.interval(heartbeat)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<ContactEventResponse>builder().comment("heartbeat").build());
+
+        return Flux.merge(events, heartbeats);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("hubspot.contact.events.subscribers", subscribers, AtomicInteger::get).register(registry);
+        FunctionCounter.builder("hubspot.contact.events.dropped", dropped, LongAdder::sum).register(registry);
+    }
+
+    private Flux<ContactEventResponse> bufferedEvents(String overflow) {
+        BufferOverflowStrategy overflowStrategy = switch (overflow) {
+            case "drop" -> BufferOverflowStrategy.DROP_LATEST;
+            case "latest" -> BufferOverflowStrategy.DROP_OLDEST;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "overflow must be drop or latest");
+        };
+
+        return OAuth2TokenHolder.getToken()
+                .flatMap(tokenValidationService::validate)
+                .mapNotNull(TokenValidationResponse::getHubId)
+                .flatMapMany(hubId -> contactHydrationService.contacts().filter(contact -> contact.hubId().equals(hubId)))
+                .map(contact -> new ContactEventResponse(contact.subscriptionType(), contact.hubId(), contact.contactId(), contact.occurredAt(), contact.contact()))
+                .onBackpressureBuffer(bufferSize, event -> dropped.increment(), overflowStrategy)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+}
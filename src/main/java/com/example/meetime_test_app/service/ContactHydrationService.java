@@ -0,0 +1,209 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.builder.ContactRequestBuilder;
+import com.example.meetime_test_app.client.HubSpotResilienceFilter;
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.example.meetime_test_app.dto.response.BatchReadContactsResponse;
+import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import com.example.meetime_test_app.utils.MicroBatcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Turns contact webhook events, which only carry the contact id, into full contacts. Ids of one
+ * portal are collected for a short window, deduplicated and read with a single batch read of up to
+ * 100 contacts, under the portal's rate limit. Every result is applied to the replica and emitted
+ * on {@link #contacts()}; deletions are emitted without a contact.
+ */
+@Slf4j
+@Service
+public class ContactHydrationService implements WebhookEventHandler, MeterBinder {
+
+    private static final Set<String> DELETIONS = Set.of("contact.deletion", "contact.privacyDeletion");
+
+    private static final int MAX_BATCH_READ_INPUTS = 100;
+
+    private static final String NOT_FOUND = "OBJECT_NOT_FOUND";
+
+    @Value("${integration.webhook.hydration.batch-size}")
+    public int batchSize;
+
+    @Value("${integration.webhook.hydration.window}")
+    public Duration window;
+
+    public String endpoint = "/crm/v3/objects/contacts/batch/read";
+
+    @Autowired
+    private WebClient webClient;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private ContactReplicaService contactReplicaService;
+
+    private MicroBatcher<PortalToken, Long, Optional<ListContactsResponse.Contact>> batcher;
+
+    private final Sinks.Many<HydratedContact> hydrated = Sinks.many().multicast().directBestEffort();
+
+    private final LongAdder events = new LongAdder();
+
+    private final LongAdder contactsRead = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        this.batcher = new MicroBatcher<>(Math.min(batchSize, MAX_BATCH_READ_INPUTS), window, this::readBatch);
+    }
+
+    /**
+     * Hydrated contacts as they come in. Subscribers only see what is emitted while they are
+     * subscribed, and one that cannot keep up misses contacts rather than slowing the webhooks down.
+     */
+    public Flux<HydratedContact> contacts() {
+        return hydrated.asFlux();
+    }
+
+    // Events are submitted together so that the ids of a webhook delivery share batch reads.
+    @Override
+    public void handle(List<ContactWebHookRequest> webhookEvents) {
+        Map<String, Mono<String>> accessTokens = new HashMap<>();
+        events.add(webhookEvents.size());
+
+        Flux.fromIterable(webhookEvents)
+                .flatMap(event -> hydrate(event, accessTokens))
+                .doOnNext(this::publish)
+                .then()
+                .block();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("hubspot.hydration.events", events, LongAdder::sum).register(registry);
+        FunctionCounter.builder("hubspot.hydration.contacts-read", contactsRead, LongAdder::sum).register(registry);
+        FunctionCounter.builder("hubspot.hydration.batches", batches, LongAdder::sum).register(registry);
+    }
+
+    private Mono<HydratedContact> hydrate(ContactWebHookRequest event, Map<String, Mono<String>> accessTokens) {
+        String hubId = String.valueOf(event.getPortalId());
+        long contactId = event.getObjectId();
+
+        if (DELETIONS.contains(event.getSubscriptionType())) {
+            return Mono.just(new HydratedContact(hubId, contactId, event.getSubscriptionType(), event.getOccurredAt(), null));
+        }
+
+        // Reads are only worth their rate limit when something will use the contact.
+        if (!contactReplicaService.isReplicated(hubId) && hydrated.currentSubscriberCount() == 0) {
+            return Mono.empty();
+        }
+
+        return accessTokens.computeIfAbsent(hubId, unused -> contactReplicaService.accessToken(hubId).cache())
+                .flatMap(accessToken -> batcher.submit(new PortalToken(hubId, accessToken), contactId))
+                .map(contact -> new HydratedContact(hubId, contactId, event.getSubscriptionType(), event.getOccurredAt(), contact.orElse(null)))
+                // A change we could not read leaves the replica behind HubSpot: fall back to HubSpot
+                // until the next full sync.
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    log.debug("No token to read contact {} of portal {}, invalidating its replica", contactId, hubId);
+                    contactReplicaService.invalidate(hubId);
+                }))
+                .onErrorResume(ex -> {
+                    log.warn("Could not read contact {} of portal {}, invalidating its replica", contactId, hubId, ex);
+                    contactReplicaService.invalidate(hubId);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> readBatch(PortalToken portal, List<MicroBatcher.Pending<Long, Optional<ListContactsResponse.Contact>>> batch) {
+        Set<Long> contactIds = batch.stream().map(MicroBatcher.Pending::item).collect(Collectors.toCollection(LinkedHashSet::new));
+        batches.increment();
+        contactsRead.add(contactIds.size());
+
+        return rateLimitService.limit(portal.hubId(), RateLimitPriority.LOW, webClient.post()
+                        .uri(endpoint)
+                        .attribute(HubSpotResilienceFilter.IDEMPOTENT_ATTRIBUTE, true)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + portal.accessToken())
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(ContactRequestBuilder.buildBatchReadContacts(contactIds))
+                        .retrieve()
+                        .bodyToMono(BatchReadContactsResponse.class))
+                .doOnNext(response -> {
+                    Map<Long, ListContactsResponse.Contact> contactsById = new HashMap<>();
+                    if (response.getResults() != null) {
+                        response.getResults().forEach(contact -> contactsById.put(Long.parseLong(contact.getId()), contact));
+                    }
+                    Set<Long> notFound = notFoundIds(response);
+
+                    // Only ids HubSpot reports as not found were deleted; any other gap fails the
+                    // contact, which invalidates the portal's replica instead of dropping it.
+                    batch.forEach(pending -> {
+                        ListContactsResponse.Contact contact = contactsById.get(pending.item());
+                        if (contact != null) {
+                            pending.success(Optional.of(contact));
+                        } else if (notFound.contains(pending.item())) {
+                            pending.success(Optional.empty());
+                        } else {
+                            pending.error(new IllegalStateException("HubSpot returned neither contact " + pending.item() + " nor a not found error for it"));
+                        }
+                    });
+                })
+                .then();
+    }
+
+    private static Set<Long> notFoundIds(BatchReadContactsResponse response) {
+        if (response.getErrors() == null) {
+            return Set.of();
+        }
+        return response.getErrors().stream()
+                .filter(error -> NOT_FOUND.equals(error.getCategory()) && error.getContext() != null)
+                .flatMap(error -> error.getContext().getOrDefault("ids", List.of()).stream())
+                .map(Long::parseLong)
+                .collect(Collectors.toSet());
+    }
+
+    private void publish(HydratedContact hydratedContact) {
+        if (hydratedContact.contact() != null) {
+            contactReplicaService.apply(hydratedContact.hubId(), hydratedContact.contact());
+        } else {
+            contactReplicaService.remove(hydratedContact.hubId(), hydratedContact.contactId());
+        }
+
+        // Webhook workers publish concurrently, while the sink expects one emitter at a time.
+        synchronized (hydrated) {
+            hydrated.tryEmitNext(hydratedContact);
+        }
+    }
+
+    /**
+     * A contact read after a webhook event, or null when the event deleted it.
+     */
+    public record HydratedContact(String hubId, long contactId, String subscriptionType, long occurredAt, ListContactsResponse.Contact contact) {
+    }
+
+    private record PortalToken(String hubId, String accessToken) {
+    }
+}
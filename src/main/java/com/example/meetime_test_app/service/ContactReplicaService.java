@@ -0,0 +1,412 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-memory copy of each portal's contacts. A portal is seeded by a full sync the first time
+ * it is read, then kept current by the contacts {@link ContactHydrationService} reads for the
+ * webhooks and by {@link ContactSyncService}. Its reads are served locally as long as it was brought
+ * up to date within the configured staleness, and its last full sync, the only one that drops
+ * contacts deleted without a webhook, is younger than the full resync interval.
+ */
+@Slf4j
+@Service
+public class ContactReplicaService implements MeterBinder {
+
+    @Value("${integration.hubspot.replica.enabled}")
+    public boolean enabled;
+
+    @Value("${integration.hubspot.replica.max-staleness}")
+    public Duration maxStaleness;
+
+    @Value("${integration.hubspot.replica.full-resync-interval}")
+    public Duration fullResyncInterval;
+
+    @Value("${integration.hubspot.replica.snapshot-path}")
+    public String snapshotPath;
+
+    @Value("${integration.hubspot.contacts.page-size}")
+    public int pageSize;
+
+    @Autowired
+    private TokenValidationService tokenValidationService;
+
+    @Autowired
+    private TokenManager tokenManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Scheduler blockingScheduler;
+
+    private final Map<String, PortalReplica> portals = new ConcurrentHashMap<>();
+
+    private final LongAdder localReads = new LongAdder();
+
+    private final LongAdder remoteReads = new LongAdder();
+
+    // Saves run after every portal sync and on shutdown; one at a time, or their files interleave.
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!enabled || snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return;
+        }
+
+        try {
+            Snapshot snapshot = objectMapper.readValue(Path.of(snapshotPath).toFile(), Snapshot.class);
+            snapshot.portals().forEach((hubId, portal) -> {
+                PortalReplica replica = replica(hubId);
+                portal.contacts().forEach(replica::apply);
+                replica.syncedAt = portal.syncedAt();
+                replica.fullySyncedAt = portal.fullySyncedAt();
+            });
+            log.info("Loaded contact replica snapshot of {} portals", snapshot.portals().size());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable contact replica snapshot {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void saveSnapshot() {
+        if (!enabled || snapshotPath.isBlank()) {
+            return;
+        }
+
+        // Taken before reading the replicas, so a save never replaces a newer one with older contacts.
+        snapshotLock.lock();
+        Path temporary = null;
+        try {
+            Map<String, PortalSnapshot> snapshot = new HashMap<>();
+            portals.forEach((hubId, replica) -> {
+                if (replica.syncedAt != null) {
+                    snapshot.put(hubId, new PortalSnapshot(replica.syncedAt, replica.fullySyncedAt, new ArrayList<>(replica.contacts.values())));
+                }
+            });
+
+            Path target = Path.of(snapshotPath).toAbsolutePath();
+            Files.createDirectories(target.getParent());
+            temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(temporary.toFile(), new Snapshot(snapshot));
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Could not write contact replica snapshot {}", snapshotPath, e);
+            deleteQuietly(temporary);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Serves the first page of the caller's portal when its replica is fresh. Otherwise completes
+     * empty and, if no sync is running yet, starts a full sync from {@code fullSync} in the
+     * background with the caller's token.
+     */
+    public Mono<ListContactsResponse> listContacts(Supplier<Flux<ListContactsResponse.Contact>> fullSync) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+
+        return OAuth2TokenHolder.getToken()
+                .flatMap(accessToken -> tokenValidationService.validate(accessToken)
+                        .flatMap(validation -> {
+                            PortalReplica replica = replica(validation.getHubId());
+                            replica.accessToken = accessToken;
+
+                            if (replica.isFresh(maxStaleness, fullResyncInterval)) {
+                                localReads.increment();
+                                return Mono.just(replica.firstPage(pageSize));
+                            }
+
+                            remoteReads.increment();
+                            sync(validation.getHubId(), replica, fullSync.get().contextWrite(OAuth2TokenHolder.withToken(accessToken)));
+                            return Mono.empty();
+                        }));
+    }
+
+    public void apply(String hubId, ListContactsResponse.Contact contact) {
+        PortalReplica replica = portals.get(hubId);
+        if (replica != null) {
+            replica.apply(contact);
+        }
+    }
+
+    public void remove(String hubId, long contactId) {
+        PortalReplica replica = portals.get(hubId);
+        if (replica != null) {
+            replica.remove(contactId);
+        }
+    }
+
+    /**
+     * Sends reads of the portal back to HubSpot until its next full sync, after a change the replica
+     * could not apply.
+     */
+    public void invalidate(String hubId) {
+        PortalReplica replica = portals.get(hubId);
+        if (replica != null) {
+            replica.syncedAt = null;
+        }
+    }
+
+    public boolean isReplicated(String hubId) {
+        return enabled && portals.containsKey(hubId);
+    }
+
+    public Set<String> hubIds() {
+        return enabled ? portals.keySet() : Set.of();
+    }
+
+    /**
+     * A token for background work on the portal: the managed one when the portal went through the
+     * OAuth flow, else the last one a caller brought.
+     */
+    public Mono<String> accessToken(String hubId) {
+        PortalReplica replica = portals.get(hubId);
+        return tokenManager.getAccessToken(hubId)
+                .switchIfEmpty(Mono.justOrEmpty(replica != null ? replica.accessToken : null));
+    }
+
+    public Instant syncedAt(String hubId) {
+        PortalReplica replica = portals.get(hubId);
+        return replica != null ? replica.syncedAt : null;
+    }
+
+    /**
+     * Moves the freshness of a seeded replica forward after every change up to {@code syncedAt} has
+     * been applied by other means than a full sync. The next full sync stays due when it was.
+     */
+    public void markSynced(String hubId, Instant syncedAt) {
+        PortalReplica replica = portals.get(hubId);
+        if (replica != null) {
+            replica.markSynced(syncedAt);
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("hubspot.replica.reads", localReads, LongAdder::sum).tag("source", "replica").register(registry);
+        FunctionCounter.builder("hubspot.replica.reads", remoteReads, LongAdder::sum).tag("source", "hubspot").register(registry);
+        Gauge.builder("hubspot.replica.contacts", portals, replicas -> replicas.values().stream().mapToInt(replica -> replica.contacts.size()).sum())
+                .register(registry);
+    }
+
+    private void sync(String hubId, PortalReplica replica, Flux<ListContactsResponse.Contact> contacts) {
+        if (!replica.startSync()) {
+            return;
+        }
+
+        Instant startedAt = Instant.now();
+        contacts.doOnNext(replica::applyToSync)
+                .then(Mono.fromRunnable(() -> replica.finishSync(startedAt)))
+                .then(Mono.fromRunnable(this::saveSnapshot).subscribeOn(blockingScheduler))
+                .doOnError(ex -> {
+                    replica.abortSync();
+                    log.warn("Full contact sync of portal {} failed", hubId, ex);
+                })
+                .subscribe(unused -> { }, ex -> { });
+    }
+
+    private static void deleteQuietly(Path temporary) {
+        if (temporary == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", temporary, e);
+        }
+    }
+
+    private PortalReplica replica(String hubId) {
+        return portals.computeIfAbsent(hubId, unused -> new PortalReplica());
+    }
+
+    public record Snapshot(Map<String, PortalSnapshot> portals) {
+    }
+
+    public record PortalSnapshot(Instant syncedAt, Instant fullySyncedAt, List<ListContactsResponse.Contact> contacts) {
+    }
+
+    // Guarded by a ReentrantLock rather than synchronized, so virtual threads are not pinned.
+    private static final class PortalReplica {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile ConcurrentSkipListMap<Long, ListContactsResponse.Contact> contacts = new ConcurrentSkipListMap<>();
+
+        private volatile Instant syncedAt;
+
+        private volatile Instant fullySyncedAt;
+
+        private volatile String accessToken;
+
+        // Contacts of the running full sync; swapped in once the sync completes.
+        private volatile ConcurrentSkipListMap<Long, ListContactsResponse.Contact> syncing;
+
+        private Set<Long> deletedWhileSyncing;
+
+        private boolean isFresh(Duration maxStaleness, Duration fullResyncInterval) {
+            Instant synced = syncedAt;
+            Instant fullySynced = fullySyncedAt;
+            Instant now = Instant.now();
+            return synced != null && synced.plus(maxStaleness).isAfter(now)
+                    && fullySynced != null && fullySynced.plus(fullResyncInterval).isAfter(now);
+        }
+
+        private boolean startSync() {
+            lock.lock();
+            try {
+                if (syncing != null) {
+                    return false;
+                }
+                syncing = new ConcurrentSkipListMap<>();
+                deletedWhileSyncing = new HashSet<>();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void applyToSync(ListContactsResponse.Contact contact) {
+            ConcurrentSkipListMap<Long, ListContactsResponse.Contact> target = syncing;
+            if (target != null) {
+                merge(target, contact);
+            }
+        }
+
+        private void finishSync(Instant startedAt) {
+            lock.lock();
+            try {
+                deletedWhileSyncing.forEach(syncing::remove);
+                contacts = syncing;
+                syncedAt = startedAt;
+                fullySyncedAt = startedAt;
+                syncing = null;
+                deletedWhileSyncing = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void markSynced(Instant synced) {
+            lock.lock();
+            try {
+                if (syncedAt != null && synced.isAfter(syncedAt)) {
+                    syncedAt = synced;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void abortSync() {
+            lock.lock();
+            try {
+                syncing = null;
+                deletedWhileSyncing = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Webhook changes made while a sync runs go to both maps, and win over the older pages the
+        // sync may still read.
+        private void apply(ListContactsResponse.Contact contact) {
+            lock.lock();
+            try {
+                merge(contacts, contact);
+                if (syncing != null) {
+                    merge(syncing, contact);
+                    deletedWhileSyncing.remove(Long.parseLong(contact.getId()));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(long contactId) {
+            lock.lock();
+            try {
+                contacts.remove(contactId);
+                if (syncing != null) {
+                    deletedWhileSyncing.add(contactId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private ListContactsResponse firstPage(int limit) {
+            List<ListContactsResponse.Contact> results = new ArrayList<>(limit);
+            for (ListContactsResponse.Contact contact : contacts.values()) {
+                if (results.size() == limit) {
+                    break;
+                }
+                results.add(contact);
+            }
+
+            ListContactsResponse page = new ListContactsResponse();
+            page.setResults(results);
+
+            if (results.size() == limit && contacts.size() > limit) {
+                ListContactsResponse.Paging.Next next = new ListContactsResponse.Paging.Next();
+                next.setAfter(String.valueOf(Long.parseLong(results.get(limit - 1).getId()) + 1));
+                ListContactsResponse.Paging paging = new ListContactsResponse.Paging();
+                paging.setNext(next);
+                page.setPaging(paging);
+            }
+            return page;
+        }
+
+        private static void merge(Map<Long, ListContactsResponse.Contact> target, ListContactsResponse.Contact contact) {
+            target.merge(Long.parseLong(contact.getId()), contact,
+                    (current, candidate) -> updatedAt(candidate).isBefore(updatedAt(current)) ? current : candidate);
+        }
+
+        private static Instant updatedAt(ListContactsResponse.Contact contact) {
+            try {
+                return contact.getUpdatedAt() != null ? Instant.parse(contact.getUpdatedAt()) : Instant.MIN;
+            } catch (DateTimeParseException e) {
+                return Instant.MIN;
+            }
+        }
+    }
+}
@@ -1,55 +1,434 @@
 package com.example.meetime_test_app.service;
 
 import com.example.meetime_test_app.builder.ContactRequestBuilder;
-import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
 import com.example.meetime_test_app.dto.request.CreateContactRequest;
+import com.example.meetime_test_app.dto.response.BatchContactsResponse;
 import com.example.meetime_test_app.dto.response.CreateContactResponse;
 import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.dto.response.ProjectedContactsResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import com.example.meetime_test_app.utils.MicroBatcher;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import com.example.meetime_test_app.utils.SingleFlightCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
-public class ContactService {
+public class ContactService implements MeterBinder {
+
+    private static final int PASSTHROUGH_PREFETCH = 8;
 
     @Autowired
     private WebClient webClient;
 
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private ContactReplicaService contactReplicaService;
+
+    @Value("${integration.hubspot.contacts.page-size}")
+    public int pageSize;
+
+    @Value("${integration.hubspot.contacts.create-batch.enabled}")
+    public boolean createBatchEnabled;
+
+    @Value("${integration.hubspot.contacts.create-batch.max-size}")
+    public int createBatchMaxSize;
+
+    @Value("${integration.hubspot.contacts.create-batch.window}")
+    public Duration createBatchWindow;
+
+    @Value("${integration.hubspot.contacts.list-cache.maximum-size}")
+    public int listCacheMaximumSize;
+
+    @Value("${integration.hubspot.contacts.list-cache.ttl}")
+    public Duration listCacheTtl;
+
     public String endpoint = "/crm/v3/objects/contacts";
 
+    private MicroBatcher<String, CreateContactRequest, CreateContactResponse> createBatcher;
+
+    private SingleFlightCache<ContactsPageKey, ListContactsResponse> listCache;
+
+    private SingleFlightCache<ContactsPageKey, ProjectedContactsResponse> projectedListCache;
+
+    @PostConstruct
+    public void init() {
+        this.createBatcher = new MicroBatcher<>(createBatchMaxSize, createBatchWindow, this::createContactBatch);
+        this.listCache = new SingleFlightCache<>(listCacheMaximumSize);
+        this.projectedListCache = new SingleFlightCache<>(listCacheMaximumSize);
+    }
+
     public Mono<CreateContactResponse> createContact(CreateContactRequest createContactRequest) {
+        if (!createBatchEnabled) {
+            return createContactIndividually(createContactRequest);
+        }
+
+        return OAuth2TokenHolder.getToken()
+                .flatMap(accessToken -> createBatcher.submit(accessToken, createContactRequest))
+                .switchIfEmpty(Mono.defer(() -> createContactIndividually(createContactRequest)));
+    }
+
+    /**
+     * HubSpot has no property selection on create, so the created contact is projected here. Its
+     * response is read into a map rather than {@link CreateContactResponse}, which would lose the
+     * properties the bean does not map; for the same reason these creates are not batched.
+     */
+    public Mono<ProjectedContactsResponse.Contact> createContact(CreateContactRequest createContactRequest, List<String> properties) {
+        List<String> selected = requireProperties(properties);
         Map<String, Object> requestBody = ContactRequestBuilder.buildCreateContact(createContactRequest);
 
-        return webClient.post()
+        return rateLimitService.limit(webClient.post()
+                        .uri(endpoint)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(requestBody)
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError, this::createContactError)
+                        .bodyToMono(ProjectedContactsResponse.Contact.class))
+                .map(created -> project(created.getId(), created.getProperties(), selected));
+    }
+
+    // The replica only serves first pages; its cursors are contact ids, as HubSpot's are, so the
+    // following pages can be read from HubSpot.
+    public Flux<ListContactsResponse> listContacts(String after) {
+        Mono<ListContactsResponse> replicaPage = after == null
+                ? contactReplicaService.listContacts(() -> streamContacts(RateLimitPriority.LOW))
+                : Mono.empty();
+
+        return replicaPage
+                .switchIfEmpty(Mono.defer(() -> cachedContactsPage(after)))
+                .flux();
+    }
+
+    /**
+     * Reads a page with only the given properties: HubSpot sends just those (and a few defaults,
+     * dropped here), and they are parsed into a map rather than the full contact bean. Projected
+     * pages are not served by the replica, which only holds the default properties.
+     */
+    public Flux<ProjectedContactsResponse> listContacts(String after, List<String> properties) {
+        List<String> selected = requireProperties(properties);
+
+        return portalKey()
+                .flatMap(portal -> projectedListCache.get(new ContactsPageKey(portal, after, selected), this::fetchProjectedContactsPage, page -> listCacheTtl))
+                .flux();
+    }
+
+    /**
+     * Copies HubSpot's page to {@code outputStream} as it arrives, without reading it into
+     * {@link ListContactsResponse}: properties the DTO does not map are kept, and at most a few
+     * buffers of the page are held at a time. Blocks until the page is written, so it must run on
+     * the servlet's async thread, which also does the writes: a slow client holds only its own
+     * thread, never the HTTP client's event loop or a shared worker.
+     */
+    public void writeContactsPage(String after, List<String> properties, OutputStream outputStream, ContextView context) throws IOException {
+        UnwrittenBuffers unwritten = new UnwrittenBuffers();
+        Flux<DataBuffer> page = rateLimitService.limit(contactsPageRequest(after, normalizeProperties(properties))
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError, this::listContactsError)
+                        .bodyToFlux(DataBuffer.class))
+                .doOnNext(unwritten::add)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .contextWrite(context);
+
+        // Closing the stream cancels the response when the client goes away mid-page, but leaves the
+        // buffers already queued to it, so those are released here.
+        try (Stream<DataBuffer> buffers = page.toStream(PASSTHROUGH_PREFETCH)) {
+            Iterator<DataBuffer> iterator = buffers.iterator();
+            while (iterator.hasNext()) {
+                try (InputStream buffer = unwritten.take(iterator.next()).asInputStream(true)) {
+                    buffer.transferTo(outputStream);
+                }
+            }
+        } finally {
+            unwritten.releaseAll();
+        }
+    }
+
+    public Flux<ListContactsResponse.Contact> streamContacts() {
+        return streamContacts(RateLimitPriority.HIGH);
+    }
+
+    // limitRate(2, 1) keeps the next page in flight while the current one is written, and never
+    // buffers more than a couple of pages no matter how many contacts the portal holds. Each page
+    // is a call of its own under the rate limit.
+    private Flux<ListContactsResponse.Contact> streamContacts(RateLimitPriority priority) {
+        return fetchContactsPage(null, priority)
+                .expand(page -> nextPageCursor(page).map(after -> fetchContactsPage(after, priority)).orElse(Mono.empty()))
+                .limitRate(2, 1)
+                .concatMapIterable(this::pageResults, 1);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        listCache.registerMetrics(registry, "hubspot.contacts.list-cache");
+        projectedListCache.registerMetrics(registry, "hubspot.contacts.projected-list-cache");
+    }
+
+    // Bypasses the create batcher, for callers that must not be batched with unrelated creates.
+    public Mono<CreateContactResponse> createContactIndividually(CreateContactRequest createContactRequest) {
+        Map<String, Object> requestBody = ContactRequestBuilder.buildCreateContact(createContactRequest);
+
+        return rateLimitService.limit(webClient.post()
                 .uri(endpoint)
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .bodyValue(requestBody)
                 .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, clientResponse ->
-                        Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, "Contact already exists")))
-                .bodyToMono(CreateContactResponse.class);
+                .onStatus(HttpStatusCode::isError, this::createContactError)
+                .bodyToMono(CreateContactResponse.class));
     }
 
-    public Flux<ListContactsResponse> listContacts() {
-        return webClient.get()
-                .uri(endpoint)
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+    private Mono<Void> createContactBatch(String accessToken, List<MicroBatcher.Pending<CreateContactRequest, CreateContactResponse>> batch) {
+        if (batch.size() == 1) {
+            return createIndividually(batch).contextWrite(OAuth2TokenHolder.withToken(accessToken));
+        }
+
+        List<CreateContactRequest> createContactRequests = batch.stream().map(MicroBatcher.Pending::item).toList();
+
+        return rateLimitService.limit(webClient.post()
+                        .uri(endpoint + "/batch/create")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(ContactRequestBuilder.buildBatchCreateContacts(createContactRequests))
+                        .retrieve()
+                        .bodyToMono(BatchContactsResponse.class))
+                .flatMap(response -> createIndividually(answerByEmail(batch, response)))
+                .onErrorResume(ex -> {
+                    // A batch HubSpot rejected as a whole (e.g. one contact already exists) created
+                    // nothing, so it is retried item by item and every caller gets the exact outcome
+                    // of its own contact.
+                    if (isBatchRejected(ex)) {
+                        return createIndividually(batch);
+                    }
+                    // After a timeout, a dropped connection or a 5xx the batch may have been
+                    // committed: sending the items again could create them twice.
+                    Throwable error = ex instanceof WebClientResponseException responseException
+                            ? createContactError(responseException.getStatusCode())
+                            : ex;
+                    batch.forEach(pending -> pending.error(error));
+                    return Mono.empty();
+                })
+                .contextWrite(OAuth2TokenHolder.withToken(accessToken));
+    }
+
+    private List<MicroBatcher.Pending<CreateContactRequest, CreateContactResponse>> answerByEmail(List<MicroBatcher.Pending<CreateContactRequest, CreateContactResponse>> batch, BatchContactsResponse response) {
+        Map<String, CreateContactResponse> createdByEmail = new HashMap<>();
+        if (response.getResults() != null) {
+            for (CreateContactResponse created : response.getResults()) {
+                if (created.getProperties() != null && created.getProperties().getEmail() != null) {
+                    createdByEmail.put(created.getProperties().getEmail().toLowerCase(), created);
+                }
+            }
+        }
+
+        List<MicroBatcher.Pending<CreateContactRequest, CreateContactResponse>> unanswered = new ArrayList<>();
+        for (MicroBatcher.Pending<CreateContactRequest, CreateContactResponse> pending : batch) {
+            CreateContactResponse created = createdByEmail.get(pending.item().getEmail().toLowerCase());
+            if (created != null) {
+                pending.success(created);
+            } else {
+                unanswered.add(pending);
+            }
+        }
+        return unanswered;
+    }
+
+    private Mono<Void> createIndividually(List<MicroBatcher.Pending<CreateContactRequest, CreateContactResponse>> batch) {
+        return Flux.fromIterable(batch)
+                .flatMap(pending -> createContactIndividually(pending.item())
+                        .doOnNext(pending::success)
+                        .doOnError(pending::error)
+                        .onErrorResume(ex -> Mono.empty()))
+                .then();
+    }
+
+    // Only a conflict means the contact exists; rate limits keep their status so callers back off,
+    // and HubSpot's own failures are a bad gateway rather than the caller's fault.
+    private Mono<Throwable> createContactError(ClientResponse clientResponse) {
+        return Mono.error(createContactError(clientResponse.statusCode()));
+    }
+
+    private ResponseStatusException createContactError(HttpStatusCode status) {
+        if (status.value() == HttpStatus.CONFLICT.value()) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Contact already exists");
+        }
+        if (status.value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "HubSpot rate limit exceeded, try again later.");
+        }
+        if (status.is5xxServerError()) {
+            return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "HubSpot failed to create the contact");
+        }
+        return new ResponseStatusException(status, "HubSpot rejected the contact");
+    }
+
+    // Only HubSpot's own 4xx answer proves the batch was not applied; a 429 asks to back off instead.
+    private boolean isBatchRejected(Throwable ex) {
+        return ex instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError()
+                && responseException.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    // Nothing is written before the first buffer, so upstream failures still reach the client as a status.
+    private Mono<Throwable> listContactsError(ClientResponse clientResponse) {
+        HttpStatusCode status = clientResponse.statusCode();
+        if (status.is5xxServerError()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_GATEWAY, "HubSpot failed to list the contacts"));
+        }
+        return Mono.error(new ResponseStatusException(status, "HubSpot rejected the contacts listing"));
+    }
+
+    /**
+     * Identical requests of a portal share one upstream call while it is in flight, and its page for
+     * a few seconds after. Pages are keyed by portal rather than token, so different users of a
+     * portal share them too; a token that was never validated only shares with itself.
+     */
+    private Mono<ListContactsResponse> cachedContactsPage(String after) {
+        return portalKey()
+                .flatMap(portal -> listCache.get(new ContactsPageKey(portal, after, List.of()), key -> fetchContactsPage(key.after(), RateLimitPriority.HIGH), page -> listCacheTtl));
+    }
+
+    private Mono<String> portalKey() {
+        return OAuth2TokenHolder.getToken()
+                .map(rateLimitService::keyForToken)
+                .defaultIfEmpty(RateLimitService.GLOBAL_KEY);
+    }
+
+    private Mono<ListContactsResponse> fetchContactsPage(String after, RateLimitPriority priority) {
+        return rateLimitService.limit(priority, contactsPageRequest(after, List.of())
                 .retrieve()
-                .bodyToFlux(ListContactsResponse.class);
+                .bodyToMono(ListContactsResponse.class));
+    }
+
+    private Mono<ProjectedContactsResponse> fetchProjectedContactsPage(ContactsPageKey key) {
+        return rateLimitService.limit(contactsPageRequest(key.after(), key.properties())
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError, this::listContactsError)
+                        .bodyToMono(ProjectedContactsResponse.class))
+                .doOnNext(page -> {
+                    if (page.getResults() != null) {
+                        page.setResults(page.getResults().stream()
+                                .map(contact -> project(contact.getId(), contact.getProperties(), key.properties()))
+                                .toList());
+                    }
+                });
+    }
+
+    private WebClient.RequestHeadersSpec<?> contactsPageRequest(String after, List<String> properties) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.path(endpoint)
+                        .queryParam("limit", pageSize)
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .queryParamIfPresent("properties", properties.isEmpty() ? Optional.empty() : Optional.of(String.join(",", properties)))
+                        .build())
+                .accept(MediaType.APPLICATION_JSON);
+    }
+
+    private ProjectedContactsResponse.Contact project(String id, Map<String, String> properties, List<String> selected) {
+        Map<String, String> projected = new LinkedHashMap<>();
+        if (properties != null) {
+            for (String name : selected) {
+                if (properties.containsKey(name)) {
+                    projected.put(name, properties.get(name));
+                }
+            }
+        }
+
+        ProjectedContactsResponse.Contact contact = new ProjectedContactsResponse.Contact();
+        contact.setId(id);
+        contact.setProperties(projected);
+        return contact;
+    }
+
+    private List<String> requireProperties(List<String> properties) {
+        List<String> selected = normalizeProperties(properties);
+        if (selected.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "properties must name at least one property");
+        }
+        return selected;
+    }
+
+    // Sorted so that the same selection in any order shares its cached pages.
+    private List<String> normalizeProperties(List<String> properties) {
+        if (properties == null) {
+            return List.of();
+        }
+        return properties.stream()
+                .map(String::trim)
+                .filter(property -> !property.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private Optional<String> nextPageCursor(ListContactsResponse page) {
+        return Optional.ofNullable(page.getPaging())
+                .map(ListContactsResponse.Paging::getNext)
+                .map(ListContactsResponse.Paging.Next::getAfter);
+    }
+
+    private List<ListContactsResponse.Contact> pageResults(ListContactsResponse page) {
+        return page.getResults() != null ? page.getResults() : List.of();
+    }
+
+    // Buffers between the HTTP client and the writing thread, in the order they are written.
+    private static final class UnwrittenBuffers {
+
+        private final Deque<DataBuffer> buffers = new ArrayDeque<>();
+
+        private boolean released;
+
+        synchronized void add(DataBuffer buffer) {
+            if (released) {
+                DataBufferUtils.release(buffer);
+            } else {
+                buffers.add(buffer);
+            }
+        }
+
+        synchronized DataBuffer take(DataBuffer buffer) {
+            buffers.poll();
+            return buffer;
+        }
+
+        synchronized void releaseAll() {
+            released = true;
+            buffers.forEach(DataBufferUtils::release);
+            buffers.clear();
+        }
     }
 
-    public void showWebhookBody(List<ContactWebHookRequest> body) {
-        System.out.println("Webhook called: contact.creation event received - event body:");
-        System.out.println(body);
+    private record ContactsPageKey(String portal, String after, List<String> properties) {
     }
 }
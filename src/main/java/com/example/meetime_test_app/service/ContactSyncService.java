@@ -0,0 +1,277 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.builder.ContactRequestBuilder;
+import com.example.meetime_test_app.client.HubSpotResilienceFilter;
+import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.dto.response.SearchContactsResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the contact replicas current by pulling only the contacts modified since a persisted
+ * high-water mark through the CRM search endpoint. The pending time range is cut into slices that are
+ * paged in parallel, and the mark only moves past a slice once every slice before it is done, so a
+ * crash resumes from the first unfinished slice.
+ */
+@Slf4j
+@Service
+public class ContactSyncService implements MeterBinder {
+
+    private static final TypeReference<Map<String, Long>> CHECKPOINTS = new TypeReference<>() {
+    };
+
+    @Value("${integration.hubspot.sync.enabled}")
+    public boolean enabled;
+
+    @Value("${integration.hubspot.sync.settle-delay}")
+    public Duration settleDelay;
+
+    @Value("${integration.hubspot.sync.slices}")
+    public int slices;
+
+    @Value("${integration.hubspot.sync.parallelism}")
+    public int parallelism;
+
+    @Value("${integration.hubspot.sync.page-size}")
+    public int pageSize;
+
+    @Value("${integration.hubspot.sync.max-results-per-query}")
+    public long maxResultsPerQuery;
+
+    @Value("${integration.hubspot.sync.checkpoint-path}")
+    public String checkpointPath;
+
+    public String endpoint = "/crm/v3/objects/contacts/search";
+
+    @Autowired
+    private WebClient webClient;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private ContactReplicaService contactReplicaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Scheduler blockingScheduler;
+
+    private final Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PostConstruct
+    public void loadCheckpoints() throws IOException {
+        Path path = Path.of(checkpointPath);
+        if (enabled && Files.exists(path)) {
+            checkpoints.putAll(objectMapper.readValue(path.toFile(), CHECKPOINTS));
+        }
+    }
+
+    /**
+     * Starts a run over every replicated portal, one portal at a time, and returns without waiting
+     * for it: the scheduler thread is shared with the token refresh. A run still going when the next
+     * one is due makes that one a no-op.
+     */
+    @Scheduled(fixedDelayString = "${integration.hubspot.sync.interval}", initialDelayString = "${integration.hubspot.sync.interval}")
+    public void syncAll() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        Flux.fromIterable(List.copyOf(contactReplicaService.hubIds()))
+                .concatMap(hubId -> Mono.defer(() -> syncPortal(hubId))
+                        .onErrorResume(ex -> {
+                            log.warn("Delta sync of portal {} stopped at {}, it resumes from there on the next run",
+                                    hubId, Instant.ofEpochMilli(checkpoints.getOrDefault(hubId, 0L)), ex);
+                            return Mono.empty();
+                        }))
+                .doFinally(signal -> running.set(false))
+                .subscribe();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("hubspot.sync.lag", checkpoints, this::lagSeconds)
+                .description("Seconds between now and the oldest delta sync high-water mark")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private Mono<Void> syncPortal(String hubId) {
+        Long from = highWaterMark(hubId);
+        long to = Instant.now().minus(settleDelay).toEpochMilli();
+
+        // Portals that were never fully synced are seeded by the replica itself.
+        if (from == null || from >= to) {
+            return Mono.empty();
+        }
+
+        return contactReplicaService.accessToken(hubId)
+                .flatMap(accessToken -> syncPortal(hubId, from, to, accessToken));
+    }
+
+    private Mono<Void> syncPortal(String hubId, long from, long to, String accessToken) {
+
+        List<long[]> ranges = split(from, to);
+        SliceProgress progress = new SliceProgress(hubId, ranges);
+        AtomicLong applied = new AtomicLong();
+
+        return Flux.range(0, ranges.size())
+                .flatMap(slice -> syncRange(hubId, ranges.get(slice)[0], ranges.get(slice)[1])
+                        .doOnNext(contact -> applied.incrementAndGet())
+                        .then(Mono.fromRunnable(() -> progress.complete(slice)).subscribeOn(blockingScheduler)), parallelism)
+                .then(Mono.fromRunnable(() -> {
+                    contactReplicaService.markSynced(hubId, Instant.ofEpochMilli(to));
+                    log.info("Delta sync of portal {} applied {} contacts modified up to {}", hubId, applied.get(), Instant.ofEpochMilli(to));
+                }))
+                .contextWrite(OAuth2TokenHolder.withToken(accessToken))
+                .then();
+    }
+
+    private Long highWaterMark(String hubId) {
+        Long checkpoint = checkpoints.get(hubId);
+        Instant syncedAt = contactReplicaService.syncedAt(hubId);
+        if (syncedAt == null) {
+            return checkpoint;
+        }
+        return checkpoint == null ? syncedAt.toEpochMilli() : Math.max(checkpoint, syncedAt.toEpochMilli());
+    }
+
+    // Search stops paging after a fixed number of results, so a range holding more is halved first.
+    private Flux<ListContactsResponse.Contact> syncRange(String hubId, long from, long to) {
+        return fetchPage(hubId, from, to, null).flatMapMany(first -> {
+            if (first.getTotal() > maxResultsPerQuery && to - from > 1) {
+                long middle = from + (to - from) / 2;
+                return syncRange(hubId, from, middle).concatWith(syncRange(hubId, middle, to));
+            }
+
+            return Flux.just(first)
+                    .expand(page -> nextPageCursor(page).map(after -> fetchPage(hubId, from, to, after)).orElse(Mono.empty()))
+                    .concatMapIterable(page -> page.getResults() != null ? page.getResults() : List.of())
+                    .doOnNext(contact -> contactReplicaService.apply(hubId, contact));
+        });
+    }
+
+    private Mono<SearchContactsResponse> fetchPage(String hubId, long from, long to, String after) {
+        return rateLimitService.limit(hubId, RateLimitPriority.LOW, webClient.post()
+                        .uri(endpoint)
+                        .attribute(HubSpotResilienceFilter.IDEMPOTENT_ATTRIBUTE, true)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .bodyValue(ContactRequestBuilder.buildSearchContactsModifiedBetween(from, to, after, pageSize))
+                        .retrieve()
+                        .bodyToMono(SearchContactsResponse.class))
+                .retryWhen(Retry.backoff(5, Duration.ofSeconds(1)).filter(this::isRateLimited));
+    }
+
+    private Optional<String> nextPageCursor(SearchContactsResponse page) {
+        return Optional.ofNullable(page.getPaging())
+                .map(ListContactsResponse.Paging::getNext)
+                .map(ListContactsResponse.Paging.Next::getAfter);
+    }
+
+    private List<long[]> split(long from, long to) {
+        List<long[]> ranges = new ArrayList<>(slices);
+        long width = Math.max(1, (to - from + slices - 1) / slices);
+        for (long start = from; start < to; start += width) {
+            ranges.add(new long[]{start, Math.min(start + width, to)});
+        }
+        return ranges;
+    }
+
+    private boolean isRateLimited(Throwable ex) {
+        return ex instanceof ResponseStatusException statusException
+                && statusException.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private double lagSeconds(Map<String, Long> marks) {
+        OptionalLong oldest = marks.values().stream().mapToLong(Long::longValue).min();
+        return oldest.isPresent() ? (System.currentTimeMillis() - oldest.getAsLong()) / 1000.0 : 0;
+    }
+
+    private synchronized void saveCheckpoint(String hubId, long highWaterMark) {
+        checkpoints.put(hubId, highWaterMark);
+
+        try {
+            Path target = Path.of(checkpointPath);
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            objectMapper.writeValue(temporary.toFile(), new HashMap<>(checkpoints));
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private class SliceProgress {
+
+        private final String hubId;
+
+        private final List<long[]> ranges;
+
+        private final boolean[] completed;
+
+        private int firstPending;
+
+        private SliceProgress(String hubId, List<long[]> ranges) {
+            this.hubId = hubId;
+            this.ranges = ranges;
+            this.completed = new boolean[ranges.size()];
+        }
+
+        private synchronized void complete(int slice) {
+            completed[slice] = true;
+
+            int previous = firstPending;
+            while (firstPending < completed.length && completed[firstPending]) {
+                firstPending++;
+            }
+
+            if (firstPending > previous) {
+                saveCheckpoint(hubId, ranges.get(firstPending - 1)[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitBackend;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import com.example.meetime_test_app.ratelimit.RateLimitWaitQueue;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+@Service
+public class RateLimitService implements MeterBinder {
+
+    public static final String GLOBAL_KEY = "global";
+
+    @Value("${integration.hubspot.rate-limit.mode}")
+    public String mode;
+
+    @Value("${integration.hubspot.rate-limit.wait.max-wait}")
+    public Duration maxWait;
+
+    @Value("${integration.hubspot.rate-limit.wait.queue-capacity}")
+    public int queueCapacity;
+
+    @Autowired
+    private RateLimitBackend rateLimitBackend;
+
+    @Autowired
+    private TokenValidationService tokenValidationService;
+
+    private RateLimitWaitQueue waitQueue;
+
+    @PostConstruct
+    public void init() {
+        if (mode.equals("wait")) {
+            waitQueue = new RateLimitWaitQueue(rateLimitBackend, queueCapacity, maxWait, Schedulers.parallel());
+        } else if (!mode.equals("reject")) {
+            throw new IllegalStateException("Unknown rate limit mode: " + mode);
+        }
+    }
+
+    /**
+     * Completes once a token was taken for the key. In wait mode the call is held without a thread
+     * until one is available; otherwise it fails right away when the bucket is empty.
+     */
+    public Mono<Void> acquire(String key, RateLimitPriority priority) {
+        if (waitQueue != null) {
+            return waitQueue.acquire(key, priority);
+        }
+        return rateLimitBackend.tryConsume(key)
+                .flatMap(nanosToWait -> nanosToWait == 0
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, try again later.")));
+    }
+
+    /**
+     * Rate limits an upstream call under the account of the token in the Reactor context, as part of
+     * a user's request: it waits ahead of bulk and background work of the account.
+     */
+    public <T> Mono<T> limit(Mono<T> upstreamCall) {
+        return limit(RateLimitPriority.HIGH, upstreamCall);
+    }
+
+    public <T> Mono<T> limit(RateLimitPriority priority, Mono<T> upstreamCall) {
+        return contextKey().flatMap(key -> limit(key, priority, upstreamCall));
+    }
+
+    // For calls whose response is streamed rather than read whole.
+    public <T> Flux<T> limit(Flux<T> upstreamCall) {
+        return contextKey().flatMap(key -> acquire(key, RateLimitPriority.HIGH)).thenMany(upstreamCall);
+    }
+
+    public <T> Mono<T> limit(String key, RateLimitPriority priority, Mono<T> upstreamCall) {
+        return acquire(key, priority).then(upstreamCall);
+    }
+
+    private Mono<String> contextKey() {
+        return OAuth2TokenHolder.getToken()
+                .map(this::keyForToken)
+                .defaultIfEmpty(GLOBAL_KEY);
+    }
+
+    // Tokens validated by the filter are still cached and resolve to their account; anything else
+    // is limited on its own, under a hash so that bucket keys never hold a bearer token.
+    public String keyForToken(String accessToken) {
+        TokenValidationResponse validation = tokenValidationService.getIfCached(accessToken);
+        if (validation != null && validation.getHubId() != null) {
+            return validation.getHubId();
+        }
+        return "token:" + sha256(accessToken);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        if (waitQueue == null) {
+            return;
+        }
+        Gauge.builder("hubspot.rate-limit.waiting", waitQueue, RateLimitWaitQueue::getWaiting).register(registry);
+        FunctionCounter.builder("hubspot.rate-limit.wait.rejected", waitQueue, RateLimitWaitQueue::getRejected).register(registry);
+        FunctionCounter.builder("hubspot.rate-limit.wait.timed-out", waitQueue, RateLimitWaitQueue::getTimedOut).register(registry);
+    }
+}
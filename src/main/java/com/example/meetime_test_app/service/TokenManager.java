@@ -0,0 +1,228 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.builder.AuthRequestBuilder;
+import com.example.meetime_test_app.dto.response.AuthResponse;
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.token.TokenPair;
+import com.example.meetime_test_app.token.TokenStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the tokens of every account that went through the OAuth flow in the {@link TokenStore} and
+ * refreshes them shortly before they expire, either on use or from a periodic sweep. Refreshes of one account are
+ * single-flight: everyone asking while one is running gets its result. Store reads and writes may
+ * hit the disk and decrypt, so they run on the blocking scheduler rather than on the caller's
+ * thread, which is often a WebClient event loop.
+ */
+@Slf4j
+@Service
+public class TokenManager implements MeterBinder {
+
+    @Value("${oauth.hubspot.client-id}")
+    public String clientId;
+
+    @Value("${oauth.hubspot.client-secret}")
+    public String clientSecret;
+
+    @Value("${integration.hubspot.token-refresh.refresh-ahead}")
+    public Duration refreshAhead;
+
+    @Autowired
+    private WebClient webClient;
+
+    @Autowired
+    private TokenValidationService tokenValidationService;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private Scheduler blockingScheduler;
+
+    public String endpoint = "/oauth/v1/token";
+
+    private final Map<String, String> hubIdByAccessToken = new ConcurrentHashMap<>();
+
+    private final Map<String, Mono<TokenPair>> refreshing = new ConcurrentHashMap<>();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    @PostConstruct
+    public void indexStoredTokens() {
+        for (TokenPair pair : tokenStore.findAll()) {
+            hubIdByAccessToken.put(pair.accessToken(), pair.hubId());
+            if (pair.previousAccessToken() != null) {
+                hubIdByAccessToken.put(pair.previousAccessToken(), pair.hubId());
+            }
+        }
+    }
+
+    /**
+     * Stores the tokens of a completed OAuth flow under the account they were issued for.
+     */
+    public Mono<TokenPair> register(AuthResponse authResponse) {
+        return tokenValidationService.validate(authResponse.getAccessToken())
+                .mapNotNull(TokenValidationResponse::getHubId)
+                .flatMap(hubId -> store(new TokenPair(hubId, authResponse.getAccessToken(), authResponse.getRefreshToken(), expiresAt(authResponse), null)));
+    }
+
+    /**
+     * A valid access token of the account, refreshed first if it is about to expire. Empty when the
+     * account never went through the OAuth flow.
+     */
+    public Mono<String> getAccessToken(String hubId) {
+        return load(hubId).flatMap(pair -> {
+            if (!pair.expiresWithin(refreshAhead)) {
+                return Mono.just(pair.accessToken());
+            }
+            return refresh(hubId).map(TokenPair::accessToken);
+        });
+    }
+
+    /**
+     * The current access token of the account a token we issued belongs to, or the token itself
+     * when it is not ours.
+     */
+    public Mono<String> resolve(String accessToken) {
+        String hubId = hubIdByAccessToken.get(accessToken);
+        if (hubId == null) {
+            return Mono.just(accessToken);
+        }
+        return getAccessToken(hubId).defaultIfEmpty(accessToken);
+    }
+
+    @Scheduled(fixedDelayString = "${integration.hubspot.token-refresh.check-interval}")
+    public void refreshExpiring() {
+        for (TokenPair pair : tokenStore.findAll()) {
+            if (pair.expiresWithin(refreshAhead)) {
+                refresh(pair.hubId()).subscribe(
+                        unused -> { },
+                        ex -> log.warn("Refreshing the token of portal {} failed", pair.hubId(), ex));
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("hubspot.token.managed", tokenStore, store -> store.findAll().size()).register(registry);
+        FunctionCounter.builder("hubspot.token.refreshes", refreshes, LongAdder::sum).register(registry);
+    }
+
+    private Mono<TokenPair> refresh(String hubId) {
+        return Mono.defer(() -> {
+            Mono<TokenPair> flight = refreshing.get(hubId);
+            if (flight == null) {
+                Mono<TokenPair> load = Mono.defer(() -> fetchRefresh(hubId))
+                        .doFinally(signal -> refreshing.remove(hubId))
+                        .cache();
+                flight = refreshing.putIfAbsent(hubId, load);
+                if (flight == null) {
+                    return load;
+                }
+            }
+            return flight;
+        });
+    }
+
+    private Mono<TokenPair> fetchRefresh(String hubId) {
+        return load(hubId).flatMap(current -> {
+            // Another refresh may have finished between the caller's check and this one starting.
+            if (!current.expiresWithin(refreshAhead)) {
+                return Mono.just(current);
+            }
+            return requestRefresh(hubId, current);
+        });
+    }
+
+    private Mono<TokenPair> requestRefresh(String hubId, TokenPair current) {
+        refreshes.increment();
+        return webClient.post()
+                .uri(endpoint)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                .bodyValue(AuthRequestBuilder.buildRefresh(current.refreshToken(), clientId, clientSecret))
+                .retrieve()
+                .bodyToMono(AuthResponse.class)
+                .flatMap(authResponse -> store(new TokenPair(
+                        hubId,
+                        authResponse.getAccessToken(),
+                        authResponse.getRefreshToken() != null ? authResponse.getRefreshToken() : current.refreshToken(),
+                        expiresAt(authResponse),
+                        current.accessToken())))
+                .onErrorResume(this::isRevoked, ex -> forget(hubId)
+                        .then(Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "HubSpot authorization was revoked, run the OAuth flow again"))));
+    }
+
+    private Mono<TokenPair> load(String hubId) {
+        return Mono.fromCallable(() -> tokenStore.get(hubId)).subscribeOn(blockingScheduler);
+    }
+
+    // The store swaps the pair in one step, so the index is cleaned of exactly the pair this write replaced.
+    private Mono<TokenPair> store(TokenPair pair) {
+        return Mono.fromCallable(() -> {
+            TokenPair replaced = tokenStore.replace(pair);
+            hubIdByAccessToken.put(pair.accessToken(), pair.hubId());
+
+            if (replaced != null) {
+                unindex(replaced.accessToken(), pair);
+                unindex(replaced.previousAccessToken(), pair);
+            }
+            return pair;
+        }).subscribeOn(blockingScheduler);
+    }
+
+    private Mono<Void> forget(String hubId) {
+        return Mono.fromRunnable(() -> {
+            TokenPair removed = tokenStore.remove(hubId);
+            if (removed != null) {
+                hubIdByAccessToken.remove(removed.accessToken());
+                if (removed.previousAccessToken() != null) {
+                    hubIdByAccessToken.remove(removed.previousAccessToken());
+                }
+            }
+        }).subscribeOn(blockingScheduler).then();
+    }
+
+    private void unindex(String accessToken, TokenPair current) {
+        if (accessToken != null
+                && !accessToken.equals(current.accessToken())
+                && !Objects.equals(accessToken, current.previousAccessToken())) {
+            hubIdByAccessToken.remove(accessToken);
+        }
+    }
+
+    private boolean isRevoked(Throwable ex) {
+        return ex instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError()
+                && responseException.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static Instant expiresAt(AuthResponse authResponse) {
+        long expiresIn = authResponse.getExpiresIn() != null ? authResponse.getExpiresIn() : 0;
+        return Instant.now().plusSeconds(expiresIn);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.utils.SingleFlightCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Service
+public class TokenValidationService implements MeterBinder {
+
+    @Value("${integration.hubspot.token-cache.maximum-size}")
+    public int maximumSize;
+
+    @Value("${integration.hubspot.token-cache.max-ttl}")
+    public Duration maxTtl;
+
+    @Value("${integration.hubspot.token-cache.negative-ttl}")
+    public Duration negativeTtl;
+
+    public String endpoint = "/oauth/v1/access-tokens/{token}";
+
+    @Autowired
+    private WebClient webClient;
+
+    private SingleFlightCache<String, Optional<TokenValidationResponse>> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = new SingleFlightCache<>(maximumSize);
+    }
+
+    public Mono<TokenValidationResponse> validate(String accessToken) {
+        return cache.get(accessToken, this::fetchValidation, this::timeToLive)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public TokenValidationResponse getIfCached(String accessToken) {
+        Optional<TokenValidationResponse> validation = cache.getIfPresent(accessToken);
+        return validation != null ? validation.orElse(null) : null;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        cache.registerMetrics(registry, "hubspot.token.cache");
+    }
+
+    private Mono<Optional<TokenValidationResponse>> fetchValidation(String accessToken) {
+        return webClient.get()
+                .uri(endpoint, accessToken)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(TokenValidationResponse.class)
+                .filter(tokenResponse -> tokenResponse.getUserId() != null)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(this::isRejectedToken, ex -> Mono.just(Optional.empty()));
+    }
+
+    private boolean isRejectedToken(Throwable ex) {
+        return ex instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError()
+                && responseException.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private Duration timeToLive(Optional<TokenValidationResponse> validation) {
+        return validation.map(this::tokenTimeToLive).orElse(negativeTtl);
+    }
+
+    private Duration tokenTimeToLive(TokenValidationResponse tokenResponse) {
+        try {
+            Duration expiresIn = Duration.ofSeconds(Long.parseLong(tokenResponse.getExpiresIn()));
+            return expiresIn.compareTo(maxTtl) < 0 ? expiresIn : maxTtl;
+        } catch (NumberFormatException e) {
+            return Duration.ZERO;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+
+import java.util.List;
+
+public interface WebhookEventHandler {
+
+    void handle(List<ContactWebHookRequest> events);
+}
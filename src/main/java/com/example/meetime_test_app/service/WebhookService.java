@@ -0,0 +1,219 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.example.meetime_test_app.journal.WebhookJournal;
+import com.example.meetime_test_app.utils.TimeWindowedLongSet;
+import com.example.meetime_test_app.utils.WebhookEventParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+public class WebhookService implements MeterBinder {
+
+    @Value("${integration.webhook.journal.directory}")
+    public String journalDirectory;
+
+    @Value("${integration.webhook.journal.segment-size}")
+    public int segmentSize;
+
+    @Value("${integration.webhook.journal.max-segments}")
+    public int maxSegments;
+
+    @Value("${integration.webhook.journal.force-on-append}")
+    public boolean forceOnAppend;
+
+    @Value("${integration.webhook.workers}")
+    public int workers;
+
+    @Value("${integration.webhook.batch-size}")
+    public int batchSize;
+
+    @Value("${integration.webhook.poll-interval}")
+    public Duration pollInterval;
+
+    @Value("${integration.webhook.max-attempts}")
+    public int maxAttempts;
+
+    @Value("${integration.webhook.dedup.window}")
+    public Duration dedupWindow;
+
+    @Value("${integration.webhook.dedup.buckets}")
+    public int dedupBuckets;
+
+    @Value("${integration.webhook.dedup.max-events-per-bucket}")
+    public int dedupMaxEventsPerBucket;
+
+    @Value("${integration.webhook.parser.max-interned-strings}")
+    public int maxInternedStrings;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private List<WebhookEventHandler> webhookEventHandlers;
+
+    private WebhookJournal journal;
+
+    private ScheduledExecutorService drainer;
+
+    private ExecutorService workerPool;
+
+    private WebhookEventParser parser;
+
+    private TimeWindowedLongSet seenEventIds;
+
+    private final LongAdder duplicates = new LongAdder();
+
+    private Batch pending;
+
+    private int failedAttempts;
+
+    @PostConstruct
+    public void start() throws IOException {
+        this.journal = new WebhookJournal(Path.of(journalDirectory), segmentSize, maxSegments, forceOnAppend);
+        this.parser = new WebhookEventParser(objectMapper.getFactory(), maxInternedStrings);
+        this.seenEventIds = new TimeWindowedLongSet(dedupWindow, dedupBuckets, dedupMaxEventsPerBucket);
+        this.workerPool = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("webhook-worker-", 0).factory());
+        this.drainer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("webhook-drainer").factory());
+        this.drainer.scheduleWithFixedDelay(this::drain, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        drainer.shutdown();
+        drainer.awaitTermination(10, TimeUnit.SECONDS);
+        workerPool.shutdown();
+        workerPool.awaitTermination(10, TimeUnit.SECONDS);
+        journal.close();
+    }
+
+    public void accept(byte[] body) {
+        try {
+            journal.append(body);
+        } catch (WebhookJournal.JournalFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Webhook backlog is full, try again later.");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("hubspot.webhook.duplicates", duplicates, LongAdder::sum).register(registry);
+        Gauge.builder("hubspot.webhook.dedup.size", seenEventIds, TimeWindowedLongSet::size).register(registry);
+        Gauge.builder("hubspot.webhook.journal.pending-segments", journal, WebhookJournal::pendingSegments).register(registry);
+    }
+
+    // A failed batch is kept and retried as is on the next run, so its events are not taken for
+    // duplicates of themselves.
+    private void drain() {
+        try {
+            while (true) {
+                if (pending == null) {
+                    List<WebhookJournal.Entry> entries = journal.poll(batchSize);
+                    if (entries.isEmpty()) {
+                        return;
+                    }
+                    pending = read(entries);
+                }
+
+                if (!process(pending)) {
+                    return;
+                }
+                journal.commit(pending.next());
+                pending = null;
+            }
+        } catch (IOException e) {
+            log.error("Webhook journal could not be drained", e);
+        }
+    }
+
+    private boolean process(Batch batch) {
+        try {
+            dispatch(batch.partitions());
+            failedAttempts = 0;
+            return true;
+        } catch (Exception e) {
+            failedAttempts++;
+            if (failedAttempts < maxAttempts) {
+                log.warn("Webhook batch failed on attempt {}/{}, it will be retried", failedAttempts, maxAttempts, e);
+                return false;
+            }
+
+            log.error("Dropping webhook batch of {} events after {} attempts", batch.events(), maxAttempts, e);
+            failedAttempts = 0;
+            return true;
+        }
+    }
+
+    // Events go straight from the parser through deduplication into their worker's partition.
+    private Batch read(List<WebhookJournal.Entry> entries) {
+        List<List<ContactWebHookRequest>> partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayList<>());
+        }
+
+        int[] events = new int[1];
+        for (WebhookJournal.Entry entry : entries) {
+            try {
+                parser.parse(entry.payload(), event -> {
+                    if (!seenEventIds.add(event.getEventId())) {
+                        duplicates.increment();
+                        return;
+                    }
+                    // Events of the same object always land on the same worker, so they are handled in order.
+                    partitions.get(Math.floorMod(Long.hashCode(event.getObjectId()), workers)).add(event);
+                    events[0]++;
+                });
+            } catch (IOException e) {
+                log.error("Skipping the rest of a malformed webhook payload of {} bytes", entry.payload().length, e);
+            }
+        }
+
+        return new Batch(partitions, events[0], entries.get(entries.size() - 1).next());
+    }
+
+    private void dispatch(List<List<ContactWebHookRequest>> partitions) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<ContactWebHookRequest> partition : partitions) {
+            if (!partition.isEmpty()) {
+                futures.add(workerPool.submit(() -> {
+                    log.debug("Handling {} webhook events", partition.size());
+                    webhookEventHandlers.forEach(handler -> handler.handle(partition));
+                }));
+            }
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private record Batch(List<List<ContactWebHookRequest>> partitions, int events, WebhookJournal.Position next) {
+    }
+}
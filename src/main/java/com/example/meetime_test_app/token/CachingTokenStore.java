@@ -0,0 +1,62 @@
+package com.example.meetime_test_app.token;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache in front of a slower store, warmed with every stored account on creation so
+ * that lookups are a map access. Writes go to the delegate first, so the cache never holds tokens
+ * the store does not. A write and its cache update happen as one step per hub_id, so concurrent
+ * writes cannot leave the cache holding a pair the store already replaced.
+ */
+public class CachingTokenStore implements TokenStore {
+
+    private final TokenStore delegate;
+
+    private final Map<String, TokenPair> cache = new ConcurrentHashMap<>();
+
+    public CachingTokenStore(TokenStore delegate) {
+        this.delegate = delegate;
+        delegate.findAll().forEach(tokenPair -> cache.put(tokenPair.hubId(), tokenPair));
+    }
+
+    @Override
+    public TokenPair get(String hubId) {
+        TokenPair cached = cache.get(hubId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Accounts authorized through another node sharing the store show up on first use. The read
+        // holds the hub_id's slot like a write does, so a pair read before a concurrent replace
+        // cannot be cached over the one that replaced it.
+        return cache.computeIfAbsent(hubId, delegate::get);
+    }
+
+    @Override
+    public TokenPair replace(TokenPair tokenPair) {
+        TokenPair[] replaced = new TokenPair[1];
+        cache.compute(tokenPair.hubId(), (hubId, cached) -> {
+            replaced[0] = delegate.replace(tokenPair);
+            return tokenPair;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public TokenPair remove(String hubId) {
+        TokenPair[] removed = new TokenPair[1];
+        cache.compute(hubId, (unused, cached) -> {
+            removed[0] = delegate.remove(hubId);
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public Collection<TokenPair> findAll() {
+        return List.copyOf(cache.values());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.meetime_test_app.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the tokens of each account in its own file, encrypted with AES-GCM. The hub_id is bound to
+ * the ciphertext as associated data, so a file copied over another account's fails to decrypt
+ * instead of handing out the wrong tokens. Files are replaced atomically, and writes of one hub_id
+ * are serialized in this process so that each sees the pair it replaces. Everything here is file
+ * I/O and crypto: callers run it on a blocking thread.
+ */
+public class FileTokenStore implements TokenStore {
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int IV_BYTES = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final String SUFFIX = ".token";
+
+    private final Path directory;
+
+    private final SecretKey key;
+
+    private final ObjectMapper objectMapper;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+
+    public FileTokenStore(Path directory, SecretKey key, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.key = key;
+        this.objectMapper = objectMapper;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public TokenPair get(String hubId) {
+        Path path = path(hubId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return read(path, hubId);
+    }
+
+    @Override
+    public TokenPair replace(TokenPair tokenPair) {
+        ReentrantLock stripe = stripe(tokenPair.hubId());
+        stripe.lock();
+        try {
+            TokenPair replaced = get(tokenPair.hubId());
+            write(tokenPair);
+            return replaced;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public TokenPair remove(String hubId) {
+        ReentrantLock stripe = stripe(hubId);
+        stripe.lock();
+        try {
+            TokenPair removed = get(hubId);
+            Files.deleteIfExists(path(hubId));
+            return removed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Collection<TokenPair> findAll() {
+        List<TokenPair> tokenPairs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                tokenPairs.add(read(file, null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokenPairs;
+    }
+
+    private void write(TokenPair tokenPair) {
+        try {
+            byte[] plaintext = objectMapper.writeValueAsBytes(tokenPair);
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(tokenPair.hubId().getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+
+            byte[] hubId = tokenPair.hubId().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer file = ByteBuffer.allocate(Integer.BYTES + hubId.length + IV_BYTES + ciphertext.length)
+                    .putInt(hubId.length)
+                    .put(hubId)
+                    .put(iv)
+                    .put(ciphertext);
+
+            Path path = path(tokenPair.hubId());
+            Path temporary = Files.createTempFile(directory, "token", ".tmp");
+            Files.write(temporary, file.array());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt the tokens of portal " + tokenPair.hubId(), e);
+        }
+    }
+
+    private TokenPair read(Path path, String expectedHubId) {
+        try {
+            ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+            byte[] hubId = new byte[file.getInt()];
+            file.get(hubId);
+            byte[] iv = new byte[IV_BYTES];
+            file.get(iv);
+            byte[] ciphertext = new byte[file.remaining()];
+            file.get(ciphertext);
+
+            String storedHubId = new String(hubId, StandardCharsets.UTF_8);
+            if (expectedHubId != null && !expectedHubId.equals(storedHubId)) {
+                throw new IllegalStateException("Token file " + path + " does not belong to portal " + expectedHubId);
+            }
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(hubId);
+            return objectMapper.readValue(cipher.doFinal(ciphertext), TokenPair.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not decrypt token file " + path + ", was the key changed?", e);
+        }
+    }
+
+    private ReentrantLock stripe(String hubId) {
+        return stripes[Math.floorMod(hubId.hashCode(), stripes.length)];
+    }
+
+    private Path path(String hubId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(hubId.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + SUFFIX);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.meetime_test_app.token;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps tokens for the life of the process only; every account has to go through the OAuth flow
+ * again after a restart.
+ */
+public class InMemoryTokenStore implements TokenStore {
+
+    private final Map<String, TokenPair> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public TokenPair get(String hubId) {
+        return tokens.get(hubId);
+    }
+
+    @Override
+    public TokenPair replace(TokenPair tokenPair) {
+        return tokens.put(tokenPair.hubId(), tokenPair);
+    }
+
+    @Override
+    public TokenPair remove(String hubId) {
+        return tokens.remove(hubId);
+    }
+
+    @Override
+    public Collection<TokenPair> findAll() {
+        return List.copyOf(tokens.values());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.meetime_test_app.token;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The OAuth tokens of one HubSpot account. The access token it replaced is kept until the next
+ * refresh, so that callers still holding it are not cut off by a refresh they did not see.
+ */
+public record TokenPair(String hubId, String accessToken, String refreshToken, Instant expiresAt, String previousAccessToken) {
+
+    public boolean expiresWithin(Duration duration) {
+        return Instant.now().plus(duration).isAfter(expiresAt);
+    }
+}
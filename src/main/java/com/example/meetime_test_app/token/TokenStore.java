@@ -0,0 +1,27 @@
+package com.example.meetime_test_app.token;
+
+import java.util.Collection;
+
+/**
+ * Where the OAuth tokens of each HubSpot account are kept, keyed by hub_id.
+ */
+public interface TokenStore {
+
+    /**
+     * The tokens of the account, or null when it never went through the OAuth flow.
+     */
+    TokenPair get(String hubId);
+
+    /**
+     * Stores the tokens of the account and returns the ones they replaced, or null. Writes of one
+     * hub_id are applied one at a time, so every caller gets back exactly the pair it overwrote.
+     */
+    TokenPair replace(TokenPair tokenPair);
+
+    /**
+     * Removes the tokens of the account and returns them, or null when there were none.
+     */
+    TokenPair remove(String hubId);
+
+    Collection<TokenPair> findAll();
+}
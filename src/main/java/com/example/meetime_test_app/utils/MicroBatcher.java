@@ -0,0 +1,103 @@
+package com.example.meetime_test_app.utils;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Collects items submitted under the same key for a short window, or until the batch is full, and
+ * hands them to the batch handler in one call. The handler answers each item through its
+ * {@link Pending}; items it leaves unanswered fail once the handler terminates.
+ */
+public class MicroBatcher<K, T, R> {
+
+    private final int maxBatchSize;
+
+    private final Duration window;
+
+    private final BiFunction<K, List<Pending<T, R>>, Mono<Void>> batchHandler;
+
+    private final Map<K, List<Pending<T, R>>> openBatches = new ConcurrentHashMap<>();
+
+    public MicroBatcher(int maxBatchSize, Duration window, BiFunction<K, List<Pending<T, R>>, Mono<Void>> batchHandler) {
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.batchHandler = batchHandler;
+    }
+
+    public Mono<R> submit(K key, T item) {
+        return Mono.create(sink -> enqueue(key, new Pending<>(item, sink)));
+    }
+
+    private void enqueue(K key, Pending<T, R> pending) {
+        List<List<Pending<T, R>>> opened = new ArrayList<>(1);
+        List<List<Pending<T, R>>> filled = new ArrayList<>(1);
+
+        openBatches.compute(key, (batchKey, batch) -> {
+            if (batch == null) {
+                batch = new ArrayList<>();
+                opened.add(batch);
+            }
+
+            batch.add(pending);
+
+            if (batch.size() >= maxBatchSize) {
+                filled.add(batch);
+                return null;
+            }
+
+            return batch;
+        });
+
+        if (!filled.isEmpty()) {
+            flush(key, filled.get(0));
+        } else if (!opened.isEmpty()) {
+            List<Pending<T, R>> batch = opened.get(0);
+            Schedulers.parallel().schedule(() -> {
+                if (openBatches.remove(key, batch)) {
+                    flush(key, batch);
+                }
+            }, window.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(K key, List<Pending<T, R>> batch) {
+        Mono.defer(() -> batchHandler.apply(key, batch)).subscribe(
+                null,
+                ex -> batch.forEach(pending -> pending.error(ex)),
+                () -> batch.forEach(pending -> pending.error(new IllegalStateException("Batch completed without a result for this item")))
+        );
+    }
+
+    public static final class Pending<T, R> {
+
+        private final T item;
+
+        private final MonoSink<R> sink;
+
+        private Pending(T item, MonoSink<R> sink) {
+            this.item = item;
+            this.sink = sink;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public void success(R result) {
+            sink.success(result);
+        }
+
+        public void error(Throwable ex) {
+            sink.error(ex);
+        }
+    }
+}
@@ -1,17 +1,16 @@
 package com.example.meetime_test_app.utils;
 
-public class OAuth2TokenHolder {
-    private static final ThreadLocal<String> tokenHolder = new ThreadLocal<>();
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
-    public static void setToken(String token) {
-        tokenHolder.set(token);
-    }
+public class OAuth2TokenHolder {
+    private static final String TOKEN_KEY = OAuth2TokenHolder.class.getName() + ".TOKEN";
 
-    public static String getToken() {
-        return tokenHolder.get();
+    public static Context withToken(String token) {
+        return Context.of(TOKEN_KEY, token);
     }
 
-    public static void clear() {
-        tokenHolder.remove();
+    public static Mono<String> getToken() {
+        return Mono.deferContextual(context -> Mono.justOrEmpty(context.<String>getOrEmpty(TOKEN_KEY)));
     }
 }
@@ -0,0 +1,175 @@
+package com.example.meetime_test_app.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache whose entries expire after a per-value time to live. Concurrent lookups of a
+ * missing key share a single in-flight load instead of each calling the loader.
+ *
+ * <p>Eviction is deliberately simple: once the cache is full, every insert scans the whole map,
+ * first for expired entries and then removing entries in the map's arbitrary iteration order, not
+ * least recently used. That is fine for the small, short-lived caches here; a large or hot cache
+ * should use a real cache library instead.
+ */
+public class SingleFlightCache<K, V> {
+
+    private final int maximumSize;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public SingleFlightCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Mono<V> get(K key, Function<K, Mono<V>> loader, Function<V, Duration> timeToLive) {
+        return Mono.defer(() -> {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            Mono<V> flight = inFlight.get(key);
+            if (flight == null) {
+                Mono<V> load = load(key, loader, timeToLive);
+                flight = inFlight.putIfAbsent(key, load);
+                if (flight == null) {
+                    misses.increment();
+                    return load;
+                }
+            }
+
+            coalesced.increment();
+            return flight;
+        });
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.isExpired(System.nanoTime())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            return null;
+        }
+
+        hits.increment();
+        return entry.value();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        return ratio(getHitCount());
+    }
+
+    public double getCoalescedRatio() {
+        return ratio(getCoalescedCount());
+    }
+
+    public void registerMetrics(MeterRegistry registry, String prefix) {
+        FunctionCounter.builder(prefix + ".hits", this, SingleFlightCache::getHitCount).register(registry);
+        FunctionCounter.builder(prefix + ".misses", this, SingleFlightCache::getMissCount).register(registry);
+        FunctionCounter.builder(prefix + ".coalesced", this, SingleFlightCache::getCoalescedCount).register(registry);
+        FunctionCounter.builder(prefix + ".evictions", this, SingleFlightCache::getEvictionCount).register(registry);
+        Gauge.builder(prefix + ".size", this, SingleFlightCache::size).register(registry);
+        Gauge.builder(prefix + ".hit-ratio", this, SingleFlightCache::getHitRatio).register(registry);
+        Gauge.builder(prefix + ".coalesced-ratio", this, SingleFlightCache::getCoalescedRatio).register(registry);
+    }
+
+    // Share of all lookups, whether answered from the cache, by joining a load or by loading.
+    private double ratio(long count) {
+        long lookups = getHitCount() + getMissCount() + getCoalescedCount();
+        return lookups == 0 ? 0 : (double) count / lookups;
+    }
+
+    private Mono<V> load(K key, Function<K, Mono<V>> loader, Function<V, Duration> timeToLive) {
+        return Mono.defer(() -> loader.apply(key))
+                .doOnNext(value -> put(key, value, timeToLive.apply(value)))
+                .doFinally(signal -> inFlight.remove(key))
+                .cache();
+    }
+
+    private void put(K key, V value, Duration timeToLive) {
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            return;
+        }
+
+        entries.put(key, new Entry<>(value, System.nanoTime() + timeToLive.toNanos()));
+
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+    }
+
+    // O(size) per insert once full, and the survivors are whichever the map iterates last.
+    private void evict() {
+        long now = System.nanoTime();
+
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            if (entry.getValue().isExpired(now) && entries.remove(entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            if (entries.size() <= maximumSize) {
+                break;
+            }
+            if (entries.remove(entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiresAt - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.meetime_test_app.utils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Set of primitive longs that forgets values after a time window. The window is split into a ring
+ * of buckets, each an open-addressing {@code long[]} table of fixed capacity; a bucket is cleared
+ * and reused once its slice of time has passed, so memory never grows past {@code buckets} tables of
+ * the smallest power of two of at least {@code 2 * maxValuesPerBucket} longs.
+ * <p>
+ * When a bucket is full new values are not remembered and {@link #add} keeps answering true for
+ * them, so an overloaded set lets duplicates through rather than dropping unseen values.
+ */
+public class TimeWindowedLongSet {
+
+    private static final long EMPTY = 0L;
+
+    private final long bucketMillis;
+
+    private final int maxValuesPerBucket;
+
+    private final LongSupplier clock;
+
+    private final Bucket[] buckets;
+
+    private long overflows;
+
+    public TimeWindowedLongSet(Duration window, int bucketCount, int maxValuesPerBucket) {
+        this(window, bucketCount, maxValuesPerBucket, System::currentTimeMillis);
+    }
+
+    public TimeWindowedLongSet(Duration window, int bucketCount, int maxValuesPerBucket, LongSupplier clock) {
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        this.maxValuesPerBucket = maxValuesPerBucket;
+        this.clock = clock;
+        this.buckets = new Bucket[bucketCount];
+    }
+
+    /**
+     * Returns true if the value was not seen within the window, remembering it from now on.
+     */
+    public synchronized boolean add(long value) {
+        long epoch = clock.getAsLong() / bucketMillis;
+
+        for (Bucket bucket : buckets) {
+            if (bucket != null && isLive(bucket, epoch) && bucket.contains(value)) {
+                return false;
+            }
+        }
+
+        Bucket current = current(epoch);
+        if (!current.add(value)) {
+            overflows++;
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        long epoch = clock.getAsLong() / bucketMillis;
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            if (bucket != null && isLive(bucket, epoch)) {
+                size += bucket.size;
+            }
+        }
+        return size;
+    }
+
+    public synchronized long getOverflows() {
+        return overflows;
+    }
+
+    private boolean isLive(Bucket bucket, long epoch) {
+        return epoch - bucket.epoch < buckets.length;
+    }
+
+    private Bucket current(long epoch) {
+        int index = (int) Math.floorMod(epoch, (long) buckets.length);
+        Bucket bucket = buckets[index];
+
+        if (bucket == null) {
+            bucket = new Bucket(maxValuesPerBucket);
+            buckets[index] = bucket;
+        } else if (bucket.epoch != epoch) {
+            bucket.clear();
+        }
+
+        bucket.epoch = epoch;
+        return bucket;
+    }
+
+    private static final class Bucket {
+
+        private final long[] table;
+
+        private final int mask;
+
+        private final int capacity;
+
+        private boolean containsEmpty;
+
+        private int size;
+
+        private long epoch;
+
+        private Bucket(int capacity) {
+            // Half-empty tables keep linear probe sequences short.
+            this.table = new long[Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1];
+            this.mask = table.length - 1;
+            this.capacity = capacity;
+        }
+
+        private boolean contains(long value) {
+            if (value == EMPTY) {
+                return containsEmpty;
+            }
+
+            for (int slot = slot(value); ; slot = (slot + 1) & mask) {
+                long current = table[slot];
+                if (current == value) {
+                    return true;
+                }
+                if (current == EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        private boolean add(long value) {
+            if (size >= capacity) {
+                return false;
+            }
+
+            if (value == EMPTY) {
+                if (!containsEmpty) {
+                    containsEmpty = true;
+                    size++;
+                }
+                return true;
+            }
+
+            int slot = slot(value);
+            while (table[slot] != EMPTY && table[slot] != value) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == EMPTY) {
+                table[slot] = value;
+                size++;
+            }
+            return true;
+        }
+
+        private void clear() {
+            Arrays.fill(table, EMPTY);
+            containsEmpty = false;
+            size = 0;
+        }
+
+        private int slot(long value) {
+            long hash = value * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
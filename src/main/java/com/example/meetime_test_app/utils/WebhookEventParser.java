@@ -0,0 +1,140 @@
+package com.example.meetime_test_app.utils;
+
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Reads a HubSpot webhook payload token by token and hands every event over as soon as it is
+ * complete, so the batch is never held as a list. The enum-like string fields are looked up straight
+ * from the parser buffer and share one String instance per distinct value.
+ * <p>
+ * Not thread-safe: each instance belongs to a single reader.
+ */
+public class WebhookEventParser {
+
+    private final JsonFactory jsonFactory;
+
+    private final Interner interner;
+
+    public WebhookEventParser(JsonFactory jsonFactory, int maxInternedStrings) {
+        this.jsonFactory = jsonFactory;
+        this.interner = new Interner(maxInternedStrings);
+    }
+
+    /**
+     * Returns the number of events handed to the consumer. Events read before a syntax error have
+     * already been handed over when the exception is thrown.
+     */
+    public int parse(byte[] payload, Consumer<ContactWebHookRequest> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of webhook events");
+            }
+
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(readEvent(parser));
+                count++;
+            }
+
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a webhook event object");
+            }
+            return count;
+        }
+    }
+
+    private ContactWebHookRequest readEvent(JsonParser parser) throws IOException {
+        ContactWebHookRequest event = new ContactWebHookRequest();
+
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            switch (field) {
+                case "eventId" -> event.setEventId(parser.getValueAsLong());
+                case "subscriptionId" -> event.setSubscriptionId(parser.getValueAsLong());
+                case "portalId" -> event.setPortalId(parser.getValueAsLong());
+                case "appId" -> event.setAppId(parser.getValueAsLong());
+                case "occurredAt" -> event.setOccurredAt(parser.getValueAsLong());
+                case "subscriptionType" -> event.setSubscriptionType(readInterned(parser));
+                case "attemptNumber" -> event.setAttemptNumber(parser.getValueAsLong());
+                case "objectId" -> event.setObjectId(parser.getValueAsLong());
+                case "changeFlag" -> event.setChangeFlag(readInterned(parser));
+                case "changeSource" -> event.setChangeSource(readInterned(parser));
+                case "sourceId" -> event.setSourceId(parser.getValueAsLong());
+                default -> parser.skipChildren();
+            }
+        }
+
+        return event;
+    }
+
+    private String readInterned(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return parser.getValueAsString();
+        }
+        return interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static final class Interner {
+
+        private final String[] table;
+
+        private final int mask;
+
+        private final int maxSize;
+
+        private int size;
+
+        private Interner(int maxSize) {
+            this.table = new String[Integer.highestOneBit(Math.max(2, maxSize * 2 - 1)) << 1];
+            this.mask = table.length - 1;
+            this.maxSize = maxSize;
+        }
+
+        // Once full, unknown values are returned as new strings instead of evicting known ones.
+        private String intern(char[] chars, int offset, int length) {
+            int hash = 0;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + chars[i];
+            }
+
+            for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+                String candidate = table[slot];
+                if (candidate == null) {
+                    String value = new String(chars, offset, length);
+                    if (size < maxSize) {
+                        table[slot] = value;
+                        size++;
+                    }
+                    return value;
+                }
+                if (matches(candidate, chars, offset, length)) {
+                    return candidate;
+                }
+            }
+        }
+
+        private boolean matches(String candidate, char[] chars, int offset, int length) {
+            if (candidate.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (candidate.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.meetime_test_app.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, 0.5, Duration.ofSeconds(5), 1);
+
+    @Test
+    void queuesOverTheLimitAndRejectsWhenTheQueueIsFull() {
+        List<String> granted = new ArrayList<>();
+
+        assertTrue(limiter.acquire(() -> granted.add("a")));
+        assertTrue(limiter.acquire(() -> granted.add("b")));
+        assertTrue(limiter.acquire(() -> granted.add("c")));
+        assertFalse(limiter.acquire(() -> granted.add("d")));
+        assertEquals(List.of("a", "b"), granted);
+        assertEquals(1, limiter.getQueued());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(0, SECOND, false);
+        assertEquals(List.of("a", "b", "c"), granted);
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void slowCallsStartedBeforeTheLastDecreaseCountOnce() {
+        limiter.acquire(() -> { });
+        limiter.acquire(() -> { });
+
+        limiter.release(0, 10 * SECOND, false);
+        limiter.release(0, 11 * SECOND, true);
+        assertEquals(1, limiter.getLimit());
+
+        limiter.acquire(() -> { });
+        limiter.release(12 * SECOND, 13 * SECOND, false);
+        limiter.acquire(() -> { });
+        limiter.release(14 * SECOND, 20 * SECOND, false);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void growsOnlyWhileTheLimitIsUsed() {
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(() -> { });
+            limiter.release(0, SECOND, false);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(() -> { });
+            limiter.acquire(() -> { });
+            limiter.release(0, SECOND, false);
+            limiter.release(0, SECOND, false);
+        }
+        // Two calls at a time justify a limit of three, not more.
+        assertEquals(3, limiter.getLimit());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.meetime_test_app.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimitFilterTest {
+
+    private static final ClientRequest REQUEST = ClientRequest.create(HttpMethod.GET, URI.create("http://hubspot.test/crm/v3/objects/contacts")).build();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void callsOverTheLimitWaitForTheSlotOfAFinishedCall() {
+        ConcurrencyLimitFilter filter = concurrencyLimitFilter(1, Duration.ofSeconds(5));
+        Sinks.One<ClientResponse> first = Sinks.one();
+
+        filter.filter(REQUEST, request -> first.asMono()).subscribe();
+        Mono<ClientResponse> second = filter.filter(REQUEST, request -> Mono.just(ClientResponse.create(HttpStatus.OK).build())).cache();
+        second.subscribe();
+        assertEquals(1, gauge("in-flight"));
+        assertEquals(1, gauge("queued"));
+
+        first.tryEmitValue(ClientResponse.create(HttpStatus.OK).build());
+
+        assertEquals(HttpStatus.OK, second.block(Duration.ofSeconds(5)).statusCode());
+        assertEquals(0, gauge("in-flight"));
+        assertEquals(0, gauge("queued"));
+    }
+
+    @Test
+    void aCallThatWaitsTooLongIsRejectedWithoutKeepingItsPlace() {
+        ConcurrencyLimitFilter filter = concurrencyLimitFilter(1, Duration.ofMillis(20));
+        Disposable first = filter.filter(REQUEST, request -> Mono.never()).subscribe();
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> filter.filter(REQUEST, request -> Mono.never()).block(Duration.ofSeconds(5)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatusCode());
+        assertEquals(0, gauge("queued"));
+
+        first.dispose();
+        assertEquals(0, gauge("in-flight"));
+    }
+
+    // The slot of a finished call is granted to a waiter just as that waiter goes away.
+    @Test
+    void aGrantRacingACancelDoesNotLeakTheSlot() throws Exception {
+        ConcurrencyLimitFilter filter = concurrencyLimitFilter(1, Duration.ofSeconds(5));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                Sinks.One<ClientResponse> holder = Sinks.one();
+                filter.filter(REQUEST, request -> holder.asMono()).subscribe();
+                Disposable waiter = filter.filter(REQUEST, request -> Mono.never()).subscribe();
+
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> finish = executor.submit(() -> race(start, () -> holder.tryEmitValue(ClientResponse.create(HttpStatus.OK).build())));
+                Future<?> cancel = executor.submit(() -> race(start, waiter::dispose));
+                finish.get();
+                cancel.get();
+
+                assertEquals(0, gauge("in-flight"), "slot leaked in round " + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ConcurrencyLimitFilter concurrencyLimitFilter(int limit, Duration maxQueueWait) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+        filter.initialLimit = limit;
+        filter.minLimit = limit;
+        filter.maxLimit = limit;
+        filter.backoffRatio = 0.9;
+        filter.latencyThreshold = Duration.ofSeconds(5);
+        filter.maxQueued = 100;
+        filter.maxQueueWait = maxQueueWait;
+        filter.init();
+        filter.bindTo(registry);
+        return filter;
+    }
+
+    private static void race(CyclicBarrier start, Runnable action) {
+        try {
+            start.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        action.run();
+    }
+
+    private double gauge(String name) {
+        return registry.get("hubspot.http.concurrency." + name).gauge().value();
+    }
+}
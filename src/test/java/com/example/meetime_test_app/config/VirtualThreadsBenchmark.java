@@ -0,0 +1,130 @@
+package com.example.meetime_test_app.config;
+
+import com.example.meetime_test_app.ratelimit.RateLimitBackend;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and p99 latency of blocking request handling at a growing number of concurrent
+ * requests, on a pool of {@value #PLATFORM_THREADS} platform threads, Tomcat's default, and on a
+ * virtual thread per request, as with {@code VIRTUAL_THREADS_ENABLED=true}. Each request takes a
+ * token from the local rate limit backend the application builds, then blocks for
+ * {@value #UPSTREAM_LATENCY_MILLIS} ms as it would on HubSpot. The highest concurrency whose p99 stays
+ * within 1.5 times that latency is reported as the sustained concurrency of each mode.
+ *
+ * <p>Sleeping stands in for the upstream call, so this compares thread models rather than the whole
+ * stack, and its numbers depend on the machine: they are printed, never checked. Surefire does not
+ * run it; start {@link #main} with the test classpath. Add {@code -Djdk.tracePinnedThreads=short} to
+ * have the JVM report any virtual thread pinned to its carrier on the way.
+ */
+public class VirtualThreadsBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    private static final long UPSTREAM_LATENCY_MILLIS = 50;
+
+    private static final int[] CONCURRENCY = {50, 100, 200, 400, 800, 1_600, 3_200};
+
+    private static final Duration WARMUP = Duration.ofSeconds(1);
+
+    private static final Duration MEASURED = Duration.ofSeconds(5);
+
+    private static final int PORTALS = 50;
+
+    private final RateLimitBackend rateLimitBackend = rateLimitBackend();
+
+    public static void main(String[] args) throws Exception {
+        new VirtualThreadsBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        System.out.printf("%12s %10s %14s %10s%n", "mode", "requests", "throughput/s", "p99 ms");
+
+        int platformSustained = 0;
+        int virtualSustained = 0;
+        for (int concurrency : CONCURRENCY) {
+            Result platform = measure(Executors.newFixedThreadPool(PLATFORM_THREADS), concurrency);
+            Result virtual = measure(Executors.newVirtualThreadPerTaskExecutor(), concurrency);
+            print("platform", concurrency, platform);
+            print("virtual", concurrency, virtual);
+
+            if (platform.isSustained()) {
+                platformSustained = concurrency;
+            }
+            if (virtual.isSustained()) {
+                virtualSustained = concurrency;
+            }
+        }
+
+        System.out.printf("Sustained concurrency: platform %d, virtual %d%n", platformSustained, virtualSustained);
+    }
+
+    // Closed loop: every client sends its next request as soon as the previous one completed.
+    private Result measure(ExecutorService server, int concurrency) throws Exception {
+        long warmupEnds = System.nanoTime() + WARMUP.toNanos();
+        long measuredEnds = warmupEnds + MEASURED.toNanos();
+        List<List<Long>> latencies = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < concurrency; client++) {
+                List<Long> clientLatencies = new ArrayList<>();
+                latencies.add(clientLatencies);
+                String portal = "portal-" + client % PORTALS;
+
+                clients.submit(() -> {
+                    long now;
+                    while ((now = System.nanoTime()) < measuredEnds) {
+                        server.submit(() -> handle(portal)).get();
+                        if (now >= warmupEnds) {
+                            clientLatencies.add(System.nanoTime() - now);
+                        }
+                    }
+                    return null;
+                });
+            }
+        } finally {
+            server.shutdown();
+            server.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        long[] sorted = latencies.stream().flatMap(List::stream).mapToLong(Long::longValue).sorted().toArray();
+        double throughput = sorted.length / (MEASURED.toNanos() / 1_000_000_000.0);
+        long p99 = sorted.length == 0 ? 0 : sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+        return new Result(throughput, p99);
+    }
+
+    private Void handle(String portal) throws InterruptedException {
+        rateLimitBackend.tryConsume(portal).block();
+        Thread.sleep(UPSTREAM_LATENCY_MILLIS);
+        return null;
+    }
+
+    private static void print(String mode, int concurrency, Result result) {
+        System.out.printf("%12s %10d %,14.0f %10.1f%n", mode, concurrency, result.throughput(), result.p99Nanos() / 1_000_000.0);
+    }
+
+    // The application's local backend, with a capacity that never throttles the benchmark.
+    private static RateLimitBackend rateLimitBackend() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.backend = "local";
+        config.capacity = 1_000_000_000L;
+        config.refillPeriod = Duration.ofSeconds(10);
+        config.maxKeys = 10_000;
+        config.idleTimeout = Duration.ofMinutes(5);
+        config.overrides = "";
+        config.prefetchBatchSize = 1;
+        return config.rateLimitBackend(null, null);
+    }
+
+    private record Result(double throughput, long p99Nanos) {
+
+        private boolean isSustained() {
+            return p99Nanos <= TimeUnit.MILLISECONDS.toNanos(UPSTREAM_LATENCY_MILLIS) * 3 / 2;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.meetime_test_app.config;
+
+import com.example.meetime_test_app.client.ConcurrencyLimitFilter;
+import com.example.meetime_test_app.client.HubSpotResilienceFilter;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebClientConfigTest {
+
+    private static final int PARALLEL_CALLS = 10_000;
+
+    private final ExchangeFunction echoAuthorization = request -> Mono
+            .delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(3)))
+            .map(tick -> ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE)
+                    .body(String.valueOf(request.headers().getFirst(HttpHeaders.AUTHORIZATION)))
+                    .build());
+
+    @Test
+    void bearerTokenNeverLeaksAcrossParallelRequests() {
+        WebClient webClient = hubSpotWebClient();
+
+        List<String> mismatches = Flux.range(0, PARALLEL_CALLS)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> webClient.get()
+                        .uri("/crm/v3/objects/contacts")
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(header -> header.equals("Bearer token-" + i) ? "" : "token-" + i + " got " + header)
+                        .contextWrite(OAuth2TokenHolder.withToken("token-" + i)))
+                .sequential()
+                .filter(mismatch -> !mismatch.isEmpty())
+                .collectList()
+                .block(Duration.ofSeconds(60));
+
+        assertTrue(mismatches.isEmpty(), () -> mismatches.size() + " leaked tokens, e.g. " + mismatches.get(0));
+    }
+
+    @Test
+    void requestsWithoutTokenCarryNoAuthorizationHeader() {
+        String header = hubSpotWebClient().get()
+                .uri("/oauth/v1/token")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("null", header);
+    }
+
+    private WebClient hubSpotWebClient() {
+        WebClientConfig webClientConfig = new WebClientConfig();
+        webClientConfig.apiUrl = "http://hubspot.test";
+        return webClientConfig.webClient(HttpClient.create(), resilienceFilter(), concurrencyLimitFilter())
+                .mutate()
+                .exchangeFunction(echoAuthorization)
+                .build();
+    }
+
+    private static HubSpotResilienceFilter resilienceFilter() {
+        HubSpotResilienceFilter filter = new HubSpotResilienceFilter();
+        filter.maxAttempts = 3;
+        filter.initialBackoff = Duration.ofMillis(200);
+        filter.maxBackoff = Duration.ofSeconds(5);
+        filter.maxRetryDelay = Duration.ofSeconds(10);
+        filter.windowSize = 50;
+        filter.minimumCalls = 20;
+        filter.failureRateThreshold = 0.5;
+        filter.openDuration = Duration.ofSeconds(30);
+        filter.halfOpenCalls = 5;
+        filter.init();
+        return filter;
+    }
+
+    // Roomy enough that none of the parallel calls is turned away while it waits for a slot.
+    private static ConcurrencyLimitFilter concurrencyLimitFilter() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+        filter.initialLimit = 20;
+        filter.minLimit = 4;
+        filter.maxLimit = 100;
+        filter.backoffRatio = 0.9;
+        filter.latencyThreshold = Duration.ofSeconds(5);
+        filter.maxQueued = PARALLEL_CALLS;
+        filter.maxQueueWait = Duration.ofSeconds(30);
+        filter.init();
+        return filter;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.meetime_test_app.filter;
+
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.service.TokenManager;
+import com.example.meetime_test_app.service.TokenValidationService;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OAuth2TokenFilterTest {
+
+    private static final int POOL_SIZE = 4;
+
+    private static final int IN_FLIGHT_REQUESTS = 5_000;
+
+    @Test
+    void fixedPoolHoldsThousandsOfPendingValidations() throws Exception {
+        Sinks.One<TokenValidationResponse> hubSpot = Sinks.one();
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate(anyString())).thenReturn(hubSpot.asMono());
+
+        OAuth2TokenFilter filter = new OAuth2TokenFilter(tokenValidationService, unmanagedTokens(), Duration.ofSeconds(30), Set.of());
+        ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE);
+
+        List<Future<MockHttpServletRequest>> submitted = new ArrayList<>();
+        for (int i = 0; i < IN_FLIGHT_REQUESTS; i++) {
+            String token = "token-" + i;
+            submitted.add(pool.submit(() -> {
+                MockHttpServletRequest request = newRequest(token);
+                filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                return request;
+            }));
+        }
+
+        List<MockHttpServletRequest> requests = new ArrayList<>();
+        for (Future<MockHttpServletRequest> future : submitted) {
+            requests.add(future.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        for (MockHttpServletRequest request : requests) {
+            assertTrue(request.isAsyncStarted());
+        }
+
+        TokenValidationResponse tokenResponse = new TokenValidationResponse();
+        tokenResponse.setUserId("42");
+        hubSpot.tryEmitValue(tokenResponse);
+
+        for (MockHttpServletRequest request : requests) {
+            MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+            assertNotNull(asyncContext);
+            assertEquals("/contact", asyncContext.getDispatchedPath());
+            assertEquals(tokenResponse, request.getAttribute(OAuth2TokenFilter.VALIDATION_ATTRIBUTE));
+        }
+    }
+
+    @Test
+    void rejectedTokenIsAnsweredWithUnauthorizedOnDispatch() throws Exception {
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate(anyString())).thenReturn(Mono.empty());
+
+        OAuth2TokenFilter filter = new OAuth2TokenFilter(tokenValidationService, unmanagedTokens(), Duration.ofSeconds(30), Set.of());
+        MockHttpServletRequest request = newRequest("invalid");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void refreshedTokenIsSentBackInAHeader() throws Exception {
+        TokenValidationResponse tokenResponse = new TokenValidationResponse();
+        tokenResponse.setHubId("123");
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate("current")).thenReturn(Mono.just(tokenResponse));
+        TokenManager tokenManager = mock(TokenManager.class);
+        when(tokenManager.resolve("expired")).thenReturn(Mono.just("current"));
+
+        OAuth2TokenFilter filter = new OAuth2TokenFilter(tokenValidationService, tokenManager, Duration.ofSeconds(30), Set.of());
+        MockHttpServletRequest request = newRequest("expired");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, response, chain);
+
+        assertEquals("current", response.getHeader(OAuth2TokenFilter.REFRESHED_TOKEN_HEADER));
+        assertEquals("current", request.getAttribute(OAuth2TokenFilter.ACCESS_TOKEN_ATTRIBUTE));
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void currentTokenGetsNoRefreshHeader() throws Exception {
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate("current")).thenReturn(Mono.just(new TokenValidationResponse()));
+
+        OAuth2TokenFilter filter = new OAuth2TokenFilter(tokenValidationService, unmanagedTokens(), Duration.ofSeconds(30), Set.of());
+        MockHttpServletRequest request = newRequest("current");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, response, chain);
+
+        assertNull(response.getHeader(OAuth2TokenFilter.REFRESHED_TOKEN_HEADER));
+        assertNotNull(chain.getRequest());
+    }
+
+    // Tokens the manager never issued resolve to themselves.
+    private static TokenManager unmanagedTokens() {
+        TokenManager tokenManager = mock(TokenManager.class);
+        when(tokenManager.resolve(anyString())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        return tokenManager;
+    }
+
+    private static MockHttpServletRequest newRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/contact");
+        request.setAsyncSupported(true);
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.meetime_test_app.journal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Events per second {@link WebhookJournal} takes in and hands back, for deliveries of
+ * {@value #EVENTS_PER_DELIVERY} HubSpot events: appends from one request thread and from several,
+ * appends forced to disk one by one, and the drainer's poll and commit loop. Segment and batch sizes
+ * are the application's defaults.
+ *
+ * <p>Disk and page cache decide most of these numbers, so they are printed for comparison between
+ * runs on the same machine rather than checked. Surefire skips this class; run {@link #main} with the
+ * test classpath. Journals are written to temporary directories and deleted afterwards.
+ */
+public class WebhookJournalBenchmark {
+
+    private static final int EVENTS_PER_DELIVERY = 10;
+
+    private static final int DELIVERIES = 50_000;
+
+    private static final int FORCED_DELIVERIES = 2_000;
+
+    private static final int APPENDING_THREADS = 4;
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAX_SEGMENTS = 64;
+
+    private static final int BATCH_SIZE = 100;
+
+    private final byte[] delivery = delivery(EVENTS_PER_DELIVERY);
+
+    public static void main(String[] args) throws Exception {
+        new WebhookJournalBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        // Warm-up, for the JIT and the file system.
+        appendRate(DELIVERIES, 1, false);
+        drainRate(DELIVERIES);
+
+        System.out.printf("Deliveries of %d events, %d bytes%n", EVENTS_PER_DELIVERY, delivery.length);
+        System.out.printf("append, 1 thread:          %,12.0f events/s%n", appendRate(DELIVERIES, 1, false));
+        System.out.printf("append, %d threads:         %,12.0f events/s%n", APPENDING_THREADS, appendRate(DELIVERIES, APPENDING_THREADS, false));
+        System.out.printf("append forced, 1 thread:   %,12.0f events/s%n", appendRate(FORCED_DELIVERIES, 1, true));
+        System.out.printf("poll and commit:           %,12.0f events/s%n", drainRate(DELIVERIES));
+    }
+
+    private double appendRate(int deliveries, int threads, boolean forceOnAppend) throws Exception {
+        Path directory = Files.createTempDirectory("webhook-journal-benchmark");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE, MAX_SEGMENTS, forceOnAppend)) {
+            long start = System.nanoTime();
+            List<Future<?>> appenders = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                appenders.add(pool.submit(() -> {
+                    for (int i = 0; i < deliveries / threads; i++) {
+                        journal.append(delivery);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> appender : appenders) {
+                appender.get();
+            }
+            return eventsPerSecond(deliveries / threads * threads, System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+            delete(directory);
+        }
+    }
+
+    private double drainRate(int deliveries) throws IOException {
+        Path directory = Files.createTempDirectory("webhook-journal-benchmark");
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE, MAX_SEGMENTS, false)) {
+            for (int i = 0; i < deliveries; i++) {
+                journal.append(delivery);
+            }
+
+            long start = System.nanoTime();
+            int drained = 0;
+            List<WebhookJournal.Entry> entries;
+            while (!(entries = journal.poll(BATCH_SIZE)).isEmpty()) {
+                journal.commit(entries.get(entries.size() - 1).next());
+                drained += entries.size();
+            }
+            return eventsPerSecond(drained, System.nanoTime() - start);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static double eventsPerSecond(int deliveries, long nanos) {
+        return (double) deliveries * EVENTS_PER_DELIVERY * 1_000_000_000L / nanos;
+    }
+
+    // Shaped like HubSpot's property change deliveries.
+    private static byte[] delivery(int events) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < events; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"eventId\":").append(1_000_000_000L + i)
+                    .append(",\"subscriptionId\":2712345,\"portalId\":44512345,\"appId\":3012345")
+                    .append(",\"occurredAt\":1714564800000,\"subscriptionType\":\"contact.propertyChange\"")
+                    .append(",\"attemptNumber\":0,\"objectId\":").append(51_000 + i)
+                    .append(",\"propertyName\":\"email\",\"propertyValue\":\"contact").append(i).append("@example.com\"")
+                    .append(",\"changeSource\":\"CRM\",\"sourceId\":\"userId:1234567\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
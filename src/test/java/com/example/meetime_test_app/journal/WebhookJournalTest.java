@@ -0,0 +1,70 @@
+package com.example.meetime_test_app.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysUncommittedEntriesAfterRestart() throws IOException {
+        WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE, 4, false);
+        journal.append(bytes("first"));
+        journal.append(bytes("second"));
+        journal.append(bytes("third"));
+
+        List<WebhookJournal.Entry> entries = journal.poll(1);
+        journal.commit(entries.get(0).next());
+        journal.poll(10);
+        journal.close();
+
+        WebhookJournal reopened = new WebhookJournal(directory, SEGMENT_SIZE, 4, false);
+        assertEquals(List.of("second", "third"), payloads(reopened.poll(10)));
+
+        reopened.append(bytes("fourth"));
+        assertEquals(List.of("fourth"), payloads(reopened.poll(10)));
+        reopened.close();
+    }
+
+    @Test
+    void rollsSegmentsAndRejectsAppendsWhenFull() throws IOException {
+        WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE, 2, false);
+        byte[] payload = new byte[400];
+
+        journal.append(payload);
+        journal.append(payload);
+        journal.append(payload);
+        journal.append(payload);
+        assertEquals(2, journal.pendingSegments());
+        assertThrows(WebhookJournal.JournalFullException.class, () -> journal.append(payload));
+
+        List<WebhookJournal.Entry> entries = journal.poll(10);
+        assertEquals(4, entries.size());
+        journal.commit(entries.get(entries.size() - 1).next());
+
+        assertEquals(1, journal.pendingSegments());
+        assertTrue(journal.append(payload).segment() > 0);
+        journal.close();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(List<WebhookJournal.Entry> entries) {
+        return entries.stream().map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList();
+    }
+}
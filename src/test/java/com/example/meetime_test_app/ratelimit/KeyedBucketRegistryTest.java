@@ -0,0 +1,69 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyedBucketRegistryTest {
+
+    private static final int TENANTS = 2_000;
+
+    private static final int CAPACITY = 20;
+
+    @Test
+    void limitsEveryKeyOnItsOwnUnderContention() throws InterruptedException {
+        KeyedBucketRegistry registry = new KeyedBucketRegistry(TENANTS, Duration.ofMinutes(1), key -> bucket(CAPACITY));
+        AtomicLongArray consumed = new AtomicLongArray(TENANTS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int thread = 0; thread < 16; thread++) {
+            executor.submit(() -> {
+                for (int attempt = 0; attempt < CAPACITY * 2; attempt++) {
+                    for (int tenant = 0; tenant < TENANTS; tenant++) {
+                        if (registry.get("hub-" + tenant).tryConsume(1)) {
+                            consumed.incrementAndGet(tenant);
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            assertEquals(CAPACITY, consumed.get(tenant), "tenant " + tenant);
+        }
+        assertEquals(TENANTS, registry.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedKeysPastTheMaximumSize() throws InterruptedException {
+        KeyedBucketRegistry registry = new KeyedBucketRegistry(10, Duration.ofMinutes(1), key -> bucket(CAPACITY));
+
+        Bucket oldest = registry.get("hub-0");
+        for (int tenant = 1; tenant <= 10; tenant++) {
+            Thread.sleep(1);
+            registry.get("hub-" + tenant);
+        }
+
+        assertTrue(registry.size() <= 10);
+        assertTrue(registry.getEvictions() > 0);
+        assertSame(registry.get("hub-10"), registry.get("hub-10"));
+        assertTrue(oldest != registry.get("hub-0"));
+    }
+
+    private static Bucket bucket(long capacity) {
+        return Bucket.builder()
+                .addLimit(limit -> limit.capacity(capacity).refillIntervally(capacity, Duration.ofHours(1)))
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.meetime_test_app.ratelimit;
+
+import io.github.bucket4j.BucketConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitBackendTest {
+
+    private static final BucketConfiguration TEN_PER_HOUR = BucketConfiguration.builder()
+            .addLimit(limit -> limit.capacity(10).refillGreedy(10, Duration.ofHours(1)))
+            .build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fileBackendsOnTheSameDirectoryShareOneBudget() {
+        FileRateLimitBackend first = new FileRateLimitBackend(directory, key -> TEN_PER_HOUR, Schedulers.immediate());
+        FileRateLimitBackend second = new FileRateLimitBackend(directory, key -> TEN_PER_HOUR, Schedulers.immediate());
+
+        long consumed = 0;
+        for (int i = 0; i < 10; i++) {
+            consumed += (i % 2 == 0 ? first : second).tryConsume("hub-1").block() == 0 ? 1 : 0;
+        }
+
+        assertEquals(10, consumed);
+        assertTrue(first.tryConsume("hub-1").block() > 0);
+        assertTrue(second.tryConsume("hub-1").block() > 0);
+        assertEquals(0, second.tryConsume("hub-2").block());
+    }
+
+    @Test
+    void prefetchingTakesTokensInBatchesWithoutExceedingTheBudget() {
+        AtomicLong remoteCalls = new AtomicLong();
+        FileRateLimitBackend shared = new FileRateLimitBackend(directory, key -> TEN_PER_HOUR, Schedulers.immediate());
+        RateLimitBackend counting = new RateLimitBackend() {
+            @Override
+            public Mono<Long> tryConsume(String key) {
+                remoteCalls.incrementAndGet();
+                return shared.tryConsume(key);
+            }
+
+            @Override
+            public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+                remoteCalls.incrementAndGet();
+                return shared.tryConsumeUpTo(key, maxTokens);
+            }
+        };
+        PrefetchingRateLimitBackend node = new PrefetchingRateLimitBackend(counting, 4, Duration.ofMinutes(1));
+
+        long consumed = 0;
+        for (int i = 0; i < 20; i++) {
+            consumed += node.tryConsume("hub-1").block() == 0 ? 1 : 0;
+        }
+
+        assertEquals(10, consumed);
+        assertTrue(remoteCalls.get() < 20, "remote calls: " + remoteCalls.get());
+    }
+
+    @Test
+    void callersFindingTheReserveEmptyShareOneRefill() {
+        AtomicLong remoteCalls = new AtomicLong();
+        Sinks.One<Long> batch = Sinks.one();
+        RateLimitBackend slow = new RateLimitBackend() {
+            @Override
+            public Mono<Long> tryConsume(String key) {
+                return Mono.error(new AssertionError("a batch was available"));
+            }
+
+            @Override
+            public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+                remoteCalls.incrementAndGet();
+                return batch.asMono();
+            }
+        };
+        PrefetchingRateLimitBackend node = new PrefetchingRateLimitBackend(slow, 4, Duration.ofMinutes(1));
+
+        List<Long> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            node.tryConsume("hub-1").subscribe(results::add);
+        }
+        assertEquals(1, remoteCalls.get());
+        assertTrue(results.isEmpty());
+
+        batch.tryEmitValue(4L);
+
+        assertEquals(List.of(0L, 0L, 0L), results);
+        assertEquals(0, node.tryConsume("hub-1").block());
+        assertEquals(1, remoteCalls.get());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.meetime_test_app.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimitWaitQueueTest {
+
+    private final AtomicInteger available = new AtomicInteger();
+
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    // A single shared bucket that never refills by itself: the tests hand out tokens explicitly.
+    private final RateLimitBackend backend = new RateLimitBackend() {
+        @Override
+        public Mono<Long> tryConsume(String key) {
+            return tryConsumeUpTo(key, 1).map(taken -> taken == 1 ? 0 : TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        @Override
+        public Mono<Long> tryConsumeUpTo(String key, long maxTokens) {
+            return Mono.fromCallable(() -> {
+                if (failing.get()) {
+                    throw new IllegalStateException("backend unavailable");
+                }
+                int before = available.getAndUpdate(tokens -> (int) Math.max(0, tokens - maxTokens));
+                return Math.min(before, maxTokens);
+            });
+        }
+    };
+
+    @Test
+    void waitersAreServedByPriorityOnceTokensArrive() {
+        RateLimitWaitQueue queue = new RateLimitWaitQueue(backend, 10, Duration.ofSeconds(5), Schedulers.parallel());
+        List<RateLimitPriority> served = new CopyOnWriteArrayList<>();
+
+        Mono<Void> low = queue.acquire("hub-1", RateLimitPriority.LOW).doOnSuccess(unused -> served.add(RateLimitPriority.LOW)).cache();
+        Mono<Void> high = queue.acquire("hub-1", RateLimitPriority.HIGH).doOnSuccess(unused -> served.add(RateLimitPriority.HIGH)).cache();
+        low.subscribe();
+        high.subscribe();
+        assertEquals(2, queue.getWaiting());
+
+        available.set(2);
+        Mono.when(low, high).block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(RateLimitPriority.HIGH, RateLimitPriority.LOW), served);
+        assertEquals(0, queue.getWaiting());
+    }
+
+    @Test
+    void callsThatWouldWaitTooLongOrFindTheQueueFullAreRejected() {
+        RateLimitWaitQueue queue = new RateLimitWaitQueue(backend, 2, Duration.ofMillis(50), Schedulers.parallel());
+
+        queue.acquire("hub-1", RateLimitPriority.LOW).subscribe(unused -> { }, ex -> { });
+        assertThrows(ResponseStatusException.class, () -> queue.acquire("hub-1", RateLimitPriority.LOW).block());
+        assertEquals(1, queue.getRejected());
+
+        assertThrows(ResponseStatusException.class, () -> queue.acquire("hub-1", RateLimitPriority.HIGH).block(Duration.ofSeconds(5)));
+        assertEquals(2, queue.getTimedOut());
+    }
+
+    @Test
+    void backendFailuresAreSurfacedToTheWaiters() {
+        RateLimitWaitQueue queue = new RateLimitWaitQueue(backend, 10, Duration.ofSeconds(5), Schedulers.parallel());
+
+        Mono<Void> waiter = queue.acquire("hub-1", RateLimitPriority.NORMAL).cache();
+        waiter.subscribe(unused -> { }, ex -> { });
+        assertEquals(1, queue.getWaiting());
+
+        failing.set(true);
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> waiter.block(Duration.ofSeconds(5)));
+
+        assertEquals("backend unavailable", error.getMessage());
+        assertEquals(0, queue.getWaiting());
+    }
+}
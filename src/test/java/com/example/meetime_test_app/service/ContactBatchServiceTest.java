@@ -0,0 +1,90 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.request.CreateContactRequest;
+import com.example.meetime_test_app.dto.response.ContactBatchResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContactBatchServiceTest {
+
+    @Test
+    void contactsSettledOneByOneKeepTheirOwnStatus() {
+        Queue<ClientResponse> individualCreates = new ConcurrentLinkedQueue<>(List.of(
+                response(HttpStatus.CREATED, "{\"id\":\"1\",\"properties\":{\"email\":\"a@example.com\"}}"),
+                response(HttpStatus.CONFLICT, "{}"),
+                response(HttpStatus.BAD_REQUEST, "{}")));
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl("https://api.hubapi.com")
+                .exchangeFunction(request -> switch (request.url().getPath()) {
+                    case "/crm/v3/objects/contacts/batch/read" -> Mono.just(response(HttpStatus.OK, "{\"results\":[]}"));
+                    // Someone created one of the contacts between the read and the create.
+                    case "/crm/v3/objects/contacts/batch/create" -> Mono.just(response(HttpStatus.CONFLICT, "{}"));
+                    default -> Mono.just(individualCreates.remove());
+                })
+                .build();
+
+        ContactBatchResponse response = contactBatchService(webClient)
+                .createContacts(List.of(contact("a@example.com"), contact("b@example.com"), contact("c@example.com")), false)
+                .block(Duration.ofSeconds(5));
+
+        List<ContactBatchResponse.Status> statuses = response.getResults().stream().map(ContactBatchResponse.Result::getStatus).toList();
+        assertEquals(List.of(ContactBatchResponse.Status.CREATED, ContactBatchResponse.Status.ALREADY_EXISTS, ContactBatchResponse.Status.FAILED), statuses);
+        assertEquals("1", response.getResults().get(0).getId());
+        assertEquals(List.of("HubSpot rejected the contact"), response.getResults().get(2).getErrors());
+    }
+
+    private static ContactBatchService contactBatchService(WebClient webClient) {
+        RateLimitService rateLimitService = mock(RateLimitService.class);
+        when(rateLimitService.limit(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rateLimitService.limit(eq(RateLimitPriority.NORMAL), any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(1));
+
+        ContactService contactService = new ContactService();
+        ReflectionTestUtils.setField(contactService, "webClient", webClient);
+        ReflectionTestUtils.setField(contactService, "rateLimitService", rateLimitService);
+
+        ContactBatchService contactBatchService = new ContactBatchService();
+        contactBatchService.maxItems = 100;
+        contactBatchService.chunkSize = 100;
+        contactBatchService.parallelism = 1;
+        ReflectionTestUtils.setField(contactBatchService, "webClient", webClient);
+        ReflectionTestUtils.setField(contactBatchService, "rateLimitService", rateLimitService);
+        ReflectionTestUtils.setField(contactBatchService, "contactService", contactService);
+        ReflectionTestUtils.setField(contactBatchService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        return contactBatchService;
+    }
+
+    private static CreateContactRequest contact(String email) {
+        CreateContactRequest request = new CreateContactRequest();
+        request.setEmail(email);
+        request.setFirstName("First");
+        request.setLastName("Last");
+        return request;
+    }
+
+    private static ClientResponse response(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
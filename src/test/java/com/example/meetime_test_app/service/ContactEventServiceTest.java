@@ -0,0 +1,95 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.ContactEventResponse;
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContactEventServiceTest {
+
+    private static final String HUB_ID = "123";
+
+    private final Sinks.Many<ContactHydrationService.HydratedContact> contacts = Sinks.many().multicast().directBestEffort();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void dropKeepsTheBufferedEventsAndDiscardsNewerOnes() {
+        assertEquals(List.of(1L, 2L), eventsSeenBySlowClient("drop"));
+        assertEquals(2, registry.get("hubspot.contact.events.dropped").functionCounter().count());
+    }
+
+    @Test
+    void latestDiscardsTheOldestBufferedEvents() {
+        assertEquals(List.of(3L, 4L), eventsSeenBySlowClient("latest"));
+        assertEquals(2, registry.get("hubspot.contact.events.dropped").functionCounter().count());
+    }
+
+    @Test
+    void anUnknownOverflowPolicyIsRejected() {
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> contactEventService().events("block"));
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    // The client reads nothing while four events of its portal, and one of another, come in.
+    private List<Long> eventsSeenBySlowClient(String overflow) {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<ContactEventResponse> client = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+            }
+
+            @Override
+            protected void hookOnNext(ContactEventResponse event) {
+                received.add(event.getContactId());
+            }
+        };
+
+        contactEventService().events(overflow)
+                .contextWrite(OAuth2TokenHolder.withToken("token"))
+                .subscribe(client);
+        for (long contactId = 1; contactId <= 4; contactId++) {
+            contacts.tryEmitNext(new ContactHydrationService.HydratedContact(HUB_ID, contactId, "contact.propertyChange", 0, null));
+        }
+        contacts.tryEmitNext(new ContactHydrationService.HydratedContact("456", 99, "contact.propertyChange", 0, null));
+
+        client.request(10);
+        client.dispose();
+        return received;
+    }
+
+    private ContactEventService contactEventService() {
+        TokenValidationResponse validation = new TokenValidationResponse();
+        validation.setHubId(HUB_ID);
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate(anyString())).thenReturn(Mono.just(validation));
+        ContactHydrationService contactHydrationService = mock(ContactHydrationService.class);
+        when(contactHydrationService.contacts()).thenReturn(contacts.asFlux());
+
+        ContactEventService service = new ContactEventService();
+        service.bufferSize = 2;
+        service.heartbeat = Duration.ofSeconds(15);
+        ReflectionTestUtils.setField(service, "tokenValidationService", tokenValidationService);
+        ReflectionTestUtils.setField(service, "contactHydrationService", contactHydrationService);
+        service.bindTo(registry);
+        return service;
+    }
+}
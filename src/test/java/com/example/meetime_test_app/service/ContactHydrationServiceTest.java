@@ -0,0 +1,178 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContactHydrationServiceTest {
+
+    private static final String HUB_ID = "123";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<List<Long>> reads = new CopyOnWriteArrayList<>();
+
+    private final ContactReplicaService contactReplicaService = mock(ContactReplicaService.class);
+
+    @Test
+    void eventsOfOneWindowShareADeduplicatedBatchRead() {
+        ContactHydrationService service = contactHydrationService(10, Set.of(), Set.of());
+        List<ContactHydrationService.HydratedContact> hydrated = new CopyOnWriteArrayList<>();
+        service.contacts().subscribe(hydrated::add);
+
+        service.handle(List.of(event(1), event(2), event(1), event(3)));
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), reads);
+        assertEquals(4, hydrated.size());
+        assertEquals(List.of(1L, 1L, 2L, 3L), hydrated.stream().map(ContactHydrationService.HydratedContact::contactId).sorted().toList());
+    }
+
+    @Test
+    void batchReadsAreCappedAtHubSpotsInputLimit() {
+        ContactHydrationService service = contactHydrationService(500, Set.of(), Set.of());
+
+        service.handle(LongStream.rangeClosed(1, 101).mapToObj(ContactHydrationServiceTest::event).toList());
+
+        assertEquals(List.of(100, 1), reads.stream().map(List::size).toList());
+    }
+
+    @Test
+    void onlyIdsReportedAsNotFoundAreDeleted() {
+        ContactHydrationService service = contactHydrationService(10, Set.of(2L), Set.of(3L));
+
+        service.handle(List.of(event(1), event(2), event(3)));
+
+        verify(contactReplicaService).apply(eq(HUB_ID), argThat(contact -> contact.getId().equals("1")));
+        verify(contactReplicaService).remove(HUB_ID, 2L);
+        verify(contactReplicaService, never()).remove(HUB_ID, 3L);
+        verify(contactReplicaService).invalidate(HUB_ID);
+    }
+
+    /**
+     * Answers batch reads like HubSpot: every requested contact, except {@code notFound} ids, which
+     * are reported in a 207, and {@code missing} ids, which are left out without any error.
+     */
+    private ContactHydrationService contactHydrationService(int batchSize, Set<Long> notFound, Set<Long> missing) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("https://api.hubapi.com")
+                .exchangeFunction(request -> requestedIds(request).map(ids -> {
+                    reads.add(ids);
+
+                    List<Map<String, Object>> results = ids.stream()
+                            .filter(id -> !notFound.contains(id) && !missing.contains(id))
+                            .map(id -> Map.<String, Object>of("id", String.valueOf(id), "properties", Map.of("email", id + "@example.com")))
+                            .toList();
+                    List<String> notFoundIds = ids.stream().filter(notFound::contains).map(String::valueOf).toList();
+                    return response(Map.of(
+                            "status", "COMPLETE",
+                            "results", results,
+                            "numErrors", notFoundIds.isEmpty() ? 0 : 1,
+                            "errors", notFoundIds.isEmpty() ? List.of() : List.of(Map.of(
+                                    "status", "error",
+                                    "category", "OBJECT_NOT_FOUND",
+                                    "message", "Could not get some CONTACT objects, they may be deleted or not exist.",
+                                    "context", Map.of("ids", notFoundIds)))));
+                }))
+                .build();
+
+        RateLimitService rateLimitService = mock(RateLimitService.class);
+        when(rateLimitService.limit(anyString(), any(), any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(2));
+        when(contactReplicaService.isReplicated(HUB_ID)).thenReturn(true);
+        when(contactReplicaService.accessToken(HUB_ID)).thenReturn(Mono.just("token"));
+
+        ContactHydrationService service = new ContactHydrationService();
+        service.batchSize = batchSize;
+        // Long enough for a cold JVM to submit a whole delivery before its window closes.
+        service.window = Duration.ofMillis(500);
+        ReflectionTestUtils.setField(service, "webClient", webClient);
+        ReflectionTestUtils.setField(service, "rateLimitService", rateLimitService);
+        ReflectionTestUtils.setField(service, "contactReplicaService", contactReplicaService);
+        service.init();
+        return service;
+    }
+
+    // Exchanges run on the batcher's timer thread, which must not block.
+    private Mono<List<Long>> requestedIds(ClientRequest request) {
+        MockClientHttpRequest written = new MockClientHttpRequest(request.method(), request.url());
+        return request.body().insert(written, new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        }).then(Mono.defer(written::getBodyAsString)).map(body -> {
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (JsonNode input : objectMapper.readTree(body).get("inputs")) {
+                    ids.add(input.get("id").asLong());
+                }
+                return ids;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private ClientResponse response(Map<String, Object> body) {
+        try {
+            boolean partial = !((List<?>) body.get("errors")).isEmpty();
+            return ClientResponse.create(partial ? HttpStatus.MULTI_STATUS : HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(objectMapper.writeValueAsString(body))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ContactWebHookRequest event(long contactId) {
+        ContactWebHookRequest event = new ContactWebHookRequest();
+        event.setPortalId(Long.parseLong(HUB_ID));
+        event.setObjectId(contactId);
+        event.setSubscriptionType("contact.propertyChange");
+        event.setOccurredAt(System.currentTimeMillis());
+        return event;
+    }
+}
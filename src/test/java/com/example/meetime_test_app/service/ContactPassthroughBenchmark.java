@@ -0,0 +1,145 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares, per page of 100 contacts, the CPU time and heap allocated by the Jackson round trip of
+ * GET /contact with {@link ContactService#writeContactsPage}, behind ?passthrough=true. The upstream
+ * page arrives in buffers sized as the HTTP client hands them over; both sides write to a discarding
+ * stream.
+ *
+ * <p>A manual benchmark, not a test: allocation counters vary with the JVM and what else runs, so it
+ * only prints its numbers. Surefire does not pick it up; run {@link #main} from the IDE, or with the
+ * test classpath after {@code mvn test-compile}.
+ */
+public class ContactPassthroughBenchmark {
+
+    private static final int WARMUP_PAGES = 2_000;
+
+    private static final int MEASURED_PAGES = 2_000;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final byte[] page = contactsPage(100);
+
+    // Answers on the calling thread, so the thread's counters see all of the work.
+    private final WebClient webClient = WebClient.builder()
+            .baseUrl("https://api.hubapi.com")
+            .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(Flux.fromIterable(split(page)))
+                    .build()))
+            .build();
+
+    public static void main(String[] args) throws IOException {
+        new ContactPassthroughBenchmark().run();
+    }
+
+    private void run() throws IOException {
+        ContactService contactService = new ContactService();
+        contactService.pageSize = 100;
+        ReflectionTestUtils.setField(contactService, "webClient", webClient);
+        // Lets every call through, so that only the page handling is measured.
+        ReflectionTestUtils.setField(contactService, "rateLimitService", new RateLimitService() {
+            @Override
+            public <T> Flux<T> limit(Flux<T> upstreamCall) {
+                return upstreamCall;
+            }
+        });
+
+        Cost roundTrip = measure(() -> objectMapper.writeValue(OutputStream.nullOutputStream(), webClient.get()
+                .uri("/crm/v3/objects/contacts")
+                .retrieve()
+                .bodyToMono(ListContactsResponse.class)
+                .block()));
+        Cost passthrough = measure(() -> contactService.writeContactsPage(null, List.of(), OutputStream.nullOutputStream(), Context.empty()));
+
+        System.out.printf("Page of %d bytes: round trip %d ns / %d B, passthrough %d ns / %d B%n",
+                page.length, roundTrip.cpuNanos(), roundTrip.allocatedBytes(), passthrough.cpuNanos(), passthrough.allocatedBytes());
+    }
+
+    private Cost measure(PageHandler handler) throws IOException {
+        for (int i = 0; i < WARMUP_PAGES; i++) {
+            handler.handle();
+        }
+
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_PAGES; i++) {
+            handler.handle();
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        return new Cost(cpu / MEASURED_PAGES, allocated / MEASURED_PAGES);
+    }
+
+    private static List<DataBuffer> split(byte[] page) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < page.length; offset += BUFFER_SIZE) {
+            int length = Math.min(BUFFER_SIZE, page.length - offset);
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(page, offset, length).slice()));
+        }
+        return buffers;
+    }
+
+    // Shaped like HubSpot's listing, including properties ListContactsResponse does not map.
+    private static byte[] contactsPage(int contacts) {
+        StringBuilder json = new StringBuilder("{\"results\":[");
+        for (int i = 1; i <= contacts; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(1000 + i).append("\",\"properties\":{")
+                    .append("\"createdate\":\"2024-05-01T12:00:00.000Z\",")
+                    .append("\"email\":\"contact").append(i).append("@example.com\",")
+                    .append("\"firstname\":\"First").append(i).append("\",")
+                    .append("\"hs_object_id\":\"").append(1000 + i).append("\",")
+                    .append("\"lastmodifieddate\":\"2024-05-02T08:30:00.000Z\",")
+                    .append("\"lastname\":\"Last").append(i).append("\",")
+                    .append("\"phone\":\"+55 11 90000-").append(String.format("%04d", i)).append("\",")
+                    .append("\"company\":\"Company ").append(i % 7).append("\"},")
+                    .append("\"createdAt\":\"2024-05-01T12:00:00.000Z\",")
+                    .append("\"updatedAt\":\"2024-05-02T08:30:00.000Z\",")
+                    .append("\"archived\":false}");
+        }
+        json.append("],\"paging\":{\"next\":{\"after\":\"").append(1001 + contacts)
+                .append("\",\"link\":\"https://api.hubapi.com/crm/v3/objects/contacts?after=").append(1001 + contacts).append("\"}}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface PageHandler {
+
+        void handle() throws IOException;
+    }
+
+    private record Cost(long cpuNanos, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContactReplicaServiceTest {
+
+    private static final String HUB_ID = "42";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAreServedLocallyOnceTheFullSyncCompleted() {
+        ContactReplicaService replica = replicaService();
+
+        assertNull(listContacts(replica, () -> Flux.just(contact(1), contact(2))));
+
+        ListContactsResponse page = listContacts(replica, Flux::empty);
+        assertEquals(List.of("1", "2"), ids(page));
+    }
+
+    @Test
+    void contactsDeletedWhileTheSyncRunsStayDeleted() {
+        ContactReplicaService replica = replicaService();
+        Sinks.Many<ListContactsResponse.Contact> sync = Sinks.many().unicast().onBackpressureBuffer();
+
+        listContacts(replica, sync::asFlux);
+        sync.tryEmitNext(contact(1));
+        replica.remove(HUB_ID, 2);
+        sync.tryEmitNext(contact(2));
+        replica.apply(HUB_ID, contact(3));
+        sync.tryEmitComplete();
+
+        assertEquals(List.of("1", "3"), ids(listContacts(replica, Flux::empty)));
+    }
+
+    @Test
+    void deltaSyncsDoNotPostponeTheFullResync() throws Exception {
+        ContactReplicaService replica = replicaService();
+        replica.fullResyncInterval = Duration.ofMillis(200);
+        AtomicInteger fullSyncs = new AtomicInteger();
+        Supplier<Flux<ListContactsResponse.Contact>> fullSync = () -> Flux.defer(() -> {
+            fullSyncs.incrementAndGet();
+            return Flux.just(contact(1));
+        });
+
+        listContacts(replica, fullSync);
+        assertEquals(List.of("1"), ids(listContacts(replica, fullSync)));
+
+        Thread.sleep(300);
+        replica.markSynced(HUB_ID, Instant.now());
+
+        assertNull(listContacts(replica, fullSync));
+        assertEquals(2, fullSyncs.get());
+    }
+
+    @Test
+    void concurrentSavesLeaveOneReadableSnapshot() throws Exception {
+        ContactReplicaService replica = replicaService();
+        listContacts(replica, () -> Flux.range(1, 500).map(ContactReplicaServiceTest::contact));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> saves = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            saves.add(pool.submit(replica::saveSnapshot));
+        }
+        for (Future<?> save : saves) {
+            save.get();
+        }
+        pool.shutdown();
+
+        ContactReplicaService restarted = replicaService();
+        restarted.loadSnapshot();
+
+        assertEquals(100, listContacts(restarted, Flux::empty).getResults().size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(directory.resolve("replica.json")), files.toList());
+        }
+    }
+
+    private ContactReplicaService replicaService() {
+        TokenValidationResponse validation = new TokenValidationResponse();
+        validation.setHubId(HUB_ID);
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate(anyString())).thenReturn(Mono.just(validation));
+
+        ContactReplicaService replica = new ContactReplicaService();
+        replica.enabled = true;
+        replica.maxStaleness = Duration.ofHours(1);
+        replica.fullResyncInterval = Duration.ofHours(1);
+        replica.snapshotPath = directory.resolve("replica.json").toString();
+        replica.pageSize = 100;
+        ReflectionTestUtils.setField(replica, "tokenValidationService", tokenValidationService);
+        ReflectionTestUtils.setField(replica, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(replica, "blockingScheduler", Schedulers.immediate());
+        return replica;
+    }
+
+    private static ListContactsResponse listContacts(ContactReplicaService replica, Supplier<Flux<ListContactsResponse.Contact>> fullSync) {
+        return replica.listContacts(fullSync)
+                .contextWrite(OAuth2TokenHolder.withToken("token"))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static List<String> ids(ListContactsResponse page) {
+        return page.getResults().stream().map(ListContactsResponse.Contact::getId).toList();
+    }
+
+    private static ListContactsResponse.Contact contact(long id) {
+        ListContactsResponse.Contact contact = new ListContactsResponse.Contact();
+        contact.setId(String.valueOf(id));
+        contact.setUpdatedAt("2024-05-01T12:00:00Z");
+        return contact;
+    }
+}
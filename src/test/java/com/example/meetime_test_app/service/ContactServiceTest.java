@@ -0,0 +1,301 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.request.CreateContactRequest;
+import com.example.meetime_test_app.dto.response.ListContactsResponse;
+import com.example.meetime_test_app.dto.response.ProjectedContactsResponse;
+import com.example.meetime_test_app.ratelimit.RateLimitPriority;
+import com.example.meetime_test_app.utils.OAuth2TokenHolder;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContactServiceTest {
+
+    private static final String BATCH_PATH = "/crm/v3/objects/contacts/batch/create";
+
+    private static final String CREATE_PATH = "/crm/v3/objects/contacts";
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+
+    private ContactService contactService;
+
+    @BeforeEach
+    void setUp() {
+        when(rateLimitService.limit(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rateLimitService.limit(any(RateLimitPriority.class), any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(1));
+        when(rateLimitService.limit(any(Flux.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(rateLimitService.keyForToken(any())).thenReturn("123");
+
+        contactService = new ContactService();
+        contactService.pageSize = 100;
+        contactService.createBatchEnabled = true;
+        contactService.createBatchMaxSize = 2;
+        contactService.createBatchWindow = Duration.ofHours(1);
+        contactService.listCacheMaximumSize = 10;
+        contactService.listCacheTtl = Duration.ofSeconds(5);
+        ReflectionTestUtils.setField(contactService, "rateLimitService", rateLimitService);
+        contactService.init();
+    }
+
+    @Test
+    void batchRejectedByHubSpotIsRetriedItemByItem() {
+        // One contact of the batch already exists, and so does each contact sent on its own.
+        respondWith(request -> Mono.just(response(HttpStatus.CONFLICT, "{}")));
+
+        List<Object> outcomes = createTwoContacts();
+
+        assertEquals(1, calls(BATCH_PATH));
+        assertEquals(2, calls(CREATE_PATH));
+        outcomes.forEach(outcome -> assertStatus(HttpStatus.CONFLICT, outcome));
+    }
+
+    @Test
+    void batchFailingWithServerErrorIsNotSentAgain() {
+        respondWith(request -> Mono.just(response(HttpStatus.INTERNAL_SERVER_ERROR, "{}")));
+
+        List<Object> outcomes = createTwoContacts();
+
+        assertEquals(1, calls(BATCH_PATH));
+        assertEquals(0, calls(CREATE_PATH));
+        outcomes.forEach(outcome -> assertStatus(HttpStatus.BAD_GATEWAY, outcome));
+    }
+
+    @Test
+    void batchLostInTransitIsNotSentAgain() {
+        WebClientRequestException timeout = new WebClientRequestException(new IOException("Connection reset"),
+                HttpMethod.POST, URI.create(BATCH_PATH), new HttpHeaders());
+        respondWith(request -> Mono.error(timeout));
+
+        List<Object> outcomes = createTwoContacts();
+
+        assertEquals(1, calls(BATCH_PATH));
+        assertEquals(0, calls(CREATE_PATH));
+        outcomes.forEach(outcome -> assertSame(timeout, outcome));
+    }
+
+    @Test
+    void everyPageOfAStreamedListingIsRateLimited() {
+        respondWith(request -> Mono.just(response(HttpStatus.OK, request.url().getQuery().contains("after=2")
+                ? "{\"results\":[{\"id\":\"2\"}]}"
+                : "{\"results\":[{\"id\":\"1\"}],\"paging\":{\"next\":{\"after\":\"2\"}}}")));
+
+        List<String> ids = contactService.streamContacts()
+                .map(ListContactsResponse.Contact::getId)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("1", "2"), ids);
+        verify(rateLimitService, times(2)).limit(eq(RateLimitPriority.HIGH), any(Mono.class));
+    }
+
+    @Test
+    void passthroughStreamsTheUpstreamPageUnchanged() throws IOException {
+        // Properties ListContactsResponse does not map, and a body split across several buffers.
+        String page = "{\"results\":[{\"id\":\"1\",\"properties\":{\"email\":\"a@example.com\",\"phone\":\"+55 11 90000-0001\"}}],"
+                + "\"paging\":{\"next\":{\"after\":\"2\"}}}";
+        byte[] bytes = page.getBytes(StandardCharsets.UTF_8);
+        List<URI> requested = new CopyOnWriteArrayList<>();
+        respondWith(request -> {
+            requested.add(request.url());
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(Flux.range(0, bytes.length / 16 + 1)
+                            .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(
+                                    Arrays.copyOfRange(bytes, chunk * 16, Math.min(bytes.length, chunk * 16 + 16)))))
+                    .build());
+        });
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        contactService.writeContactsPage("1", List.of(" phone", "email", "phone"), output, OAuth2TokenHolder.withToken("token"));
+
+        assertEquals(page, output.toString(StandardCharsets.UTF_8));
+        assertEquals(1, requested.size());
+        assertEquals("limit=100&after=1&properties=email,phone", requested.get(0).getQuery());
+    }
+
+    @Test
+    void passthroughMapsUpstreamErrors() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        respondWith(request -> Mono.just(response(HttpStatus.SERVICE_UNAVAILABLE, "{\"status\":\"error\"}")));
+        ResponseStatusException serverError = assertThrows(ResponseStatusException.class,
+                () -> contactService.writeContactsPage(null, null, output, OAuth2TokenHolder.withToken("token")));
+        assertEquals(HttpStatus.BAD_GATEWAY.value(), serverError.getStatusCode().value());
+
+        respondWith(request -> Mono.just(response(HttpStatus.UNAUTHORIZED, "{\"status\":\"error\"}")));
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> contactService.writeContactsPage(null, null, output, OAuth2TokenHolder.withToken("token")));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), rejected.getStatusCode().value());
+
+        // Nothing of an error body reaches the client.
+        assertEquals(0, output.size());
+    }
+
+    @Test
+    void passthroughReleasesThePageWhenTheClientGoesAway() {
+        List<DataBuffer> page = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            page.add(new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT).wrap(("{\"chunk\":" + i + "}").getBytes(StandardCharsets.UTF_8)));
+        }
+        respondWith(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(Flux.fromIterable(page))
+                .build()));
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> contactService.writeContactsPage(null, null, disconnected, OAuth2TokenHolder.withToken("token")));
+
+        // The buffer being written and those queued behind it.
+        page.forEach(buffer -> assertEquals(0, ((NettyDataBuffer) buffer).getNativeBuffer().refCnt()));
+    }
+
+    @Test
+    void projectedCreateKeepsPropertiesTheResponseBeanDoesNotMap() {
+        respondWith(request -> Mono.just(response(HttpStatus.CREATED, "{\"id\":\"1\",\"properties\":{\"email\":\"a@example.com\","
+                + "\"hs_lead_status\":\"NEW\",\"createdate\":\"2025-01-01T00:00:00Z\"}}")));
+
+        ProjectedContactsResponse.Contact created = contactService.createContact(request("a@example.com"), List.of(" hs_lead_status", "email"))
+                .contextWrite(OAuth2TokenHolder.withToken("token"))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("1", created.getId());
+        assertEquals(List.of("email", "hs_lead_status"), List.copyOf(created.getProperties().keySet()));
+        assertEquals("NEW", created.getProperties().get("hs_lead_status"));
+        assertEquals(1, calls(CREATE_PATH));
+        assertEquals(0, calls(BATCH_PATH));
+    }
+
+    @Test
+    void projectedListingsShareOneCachedPageWhateverTheOrderOfTheSelection() {
+        List<URI> requested = new CopyOnWriteArrayList<>();
+        respondWith(request -> {
+            requested.add(request.url());
+            return Mono.just(response(HttpStatus.OK, "{\"results\":[{\"id\":\"1\",\"properties\":{\"email\":\"a@example.com\","
+                    + "\"phone\":\"+55 11 90000-0001\",\"hs_object_id\":\"1\"}}]}"));
+        });
+
+        ProjectedContactsResponse first = contactService.listContacts(null, List.of("phone", "email"))
+                .contextWrite(OAuth2TokenHolder.withToken("token"))
+                .blockLast(Duration.ofSeconds(5));
+        ProjectedContactsResponse second = contactService.listContacts(null, List.of(" email", "phone", "email", ""))
+                .contextWrite(OAuth2TokenHolder.withToken("token"))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertEquals(1, requested.size());
+        assertEquals("limit=100&properties=email,phone", requested.get(0).getQuery());
+        assertSame(first, second);
+        // The default HubSpot adds to every contact is not part of the selection.
+        assertEquals(Map.of("email", "a@example.com", "phone", "+55 11 90000-0001"), first.getResults().get(0).getProperties());
+    }
+
+    @Test
+    void anEmptySelectionIsRejected() {
+        respondWith(request -> Mono.just(response(HttpStatus.OK, "{}")));
+
+        for (List<String> properties : Arrays.asList(null, List.<String>of(), List.of(" ", ""))) {
+            ResponseStatusException listing = assertThrows(ResponseStatusException.class, () -> contactService.listContacts(null, properties));
+            assertEquals(HttpStatus.BAD_REQUEST.value(), listing.getStatusCode().value());
+            ResponseStatusException creation = assertThrows(ResponseStatusException.class,
+                    () -> contactService.createContact(request("a@example.com"), properties));
+            assertEquals(HttpStatus.BAD_REQUEST.value(), creation.getStatusCode().value());
+        }
+        assertTrue(calls.isEmpty());
+    }
+
+    private List<Object> createTwoContacts() {
+        return Mono.zip(create("a@example.com"), create("b@example.com"))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2()))
+                .contextWrite(OAuth2TokenHolder.withToken("token"))
+                .block(Duration.ofSeconds(5));
+    }
+
+    private Mono<Object> create(String email) {
+        return contactService.createContact(request(email)).map(Object.class::cast).onErrorResume(Mono::just);
+    }
+
+    private static CreateContactRequest request(String email) {
+        CreateContactRequest request = new CreateContactRequest();
+        request.setEmail(email);
+        request.setFirstName("First");
+        request.setLastName("Last");
+        return request;
+    }
+
+    private void respondWith(Function<ClientRequest, Mono<ClientResponse>> hubSpot) {
+        ReflectionTestUtils.setField(contactService, "webClient", WebClient.builder()
+                .baseUrl("https://api.hubapi.com")
+                .exchangeFunction(request -> {
+                    calls.computeIfAbsent(request.url().getPath(), path -> new AtomicInteger()).incrementAndGet();
+                    return hubSpot.apply(request);
+                })
+                .build());
+    }
+
+    private int calls(String path) {
+        AtomicInteger count = calls.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    private static ClientResponse response(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    private static void assertStatus(HttpStatus status, Object outcome) {
+        ResponseStatusException exception = assertInstanceOf(ResponseStatusException.class, outcome);
+        assertEquals(status.value(), exception.getStatusCode().value());
+    }
+}
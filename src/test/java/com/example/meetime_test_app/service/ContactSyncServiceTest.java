@@ -0,0 +1,62 @@
+package com.example.meetime_test_app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContactSyncServiceTest {
+
+    private final ContactReplicaService contactReplicaService = mock(ContactReplicaService.class);
+
+    @Test
+    void aRunDoesNotHoldTheSchedulerThread() {
+        when(contactReplicaService.hubIds()).thenReturn(Set.of("1"));
+        when(contactReplicaService.accessToken("1")).thenReturn(Mono.never());
+        ContactSyncService syncService = contactSyncService();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), syncService::syncAll);
+        // Due again while the first run still waits on HubSpot.
+        syncService.syncAll();
+
+        verify(contactReplicaService, times(1)).accessToken("1");
+    }
+
+    @Test
+    void aFailingPortalDoesNotStopTheRun() {
+        when(contactReplicaService.hubIds()).thenReturn(Set.of("1", "2"));
+        when(contactReplicaService.accessToken("1")).thenReturn(Mono.error(new IllegalStateException("HubSpot is down")));
+        when(contactReplicaService.accessToken("2")).thenReturn(Mono.error(new IllegalStateException("HubSpot is down")));
+        ContactSyncService syncService = contactSyncService();
+
+        syncService.syncAll();
+        syncService.syncAll();
+
+        verify(contactReplicaService, times(2)).accessToken("1");
+        verify(contactReplicaService, times(2)).accessToken("2");
+    }
+
+    private ContactSyncService contactSyncService() {
+        when(contactReplicaService.syncedAt(anyString())).thenReturn(Instant.now().minus(Duration.ofHours(1)));
+
+        ContactSyncService syncService = new ContactSyncService();
+        syncService.enabled = true;
+        syncService.settleDelay = Duration.ofMinutes(1);
+        syncService.slices = 4;
+        syncService.parallelism = 2;
+        syncService.pageSize = 100;
+        syncService.maxResultsPerQuery = 10_000;
+        ReflectionTestUtils.setField(syncService, "contactReplicaService", contactReplicaService);
+        return syncService;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.meetime_test_app.service;
+
+import com.example.meetime_test_app.dto.response.AuthResponse;
+import com.example.meetime_test_app.dto.response.TokenValidationResponse;
+import com.example.meetime_test_app.token.InMemoryTokenStore;
+import com.example.meetime_test_app.token.TokenStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenManagerTest {
+
+    private static final String HUB_ID = "123";
+
+    private static final String REFRESHED = "{\"access_token\":\"refreshed\",\"refresh_token\":\"refresh-2\",\"expires_in\":1800}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TokenStore tokenStore = new InMemoryTokenStore();
+
+    private final AtomicInteger refreshCalls = new AtomicInteger();
+
+    private TokenManager tokenManager;
+
+    @BeforeEach
+    void setUp() {
+        TokenValidationResponse validation = new TokenValidationResponse();
+        validation.setHubId(HUB_ID);
+        TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+        when(tokenValidationService.validate("initial")).thenReturn(Mono.just(validation));
+
+        tokenManager = new TokenManager();
+        tokenManager.clientId = "client";
+        tokenManager.clientSecret = "secret";
+        tokenManager.refreshAhead = Duration.ofMinutes(5);
+        ReflectionTestUtils.setField(tokenManager, "tokenValidationService", tokenValidationService);
+        ReflectionTestUtils.setField(tokenManager, "tokenStore", tokenStore);
+        ReflectionTestUtils.setField(tokenManager, "blockingScheduler", Schedulers.immediate());
+    }
+
+    @Test
+    void concurrentCallersAtExpiryShareOneRefresh() throws Exception {
+        Sinks.One<ClientResponse> hubSpot = Sinks.one();
+        respondWith(request -> hubSpot.asMono());
+        registerExpiredTokens();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Mono<String>>> callers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            callers.add(pool.submit(() -> {
+                Mono<String> accessToken = tokenManager.getAccessToken(HUB_ID).cache();
+                accessToken.subscribe();
+                return accessToken;
+            }));
+        }
+        List<Mono<String>> accessTokens = new ArrayList<>();
+        for (Future<Mono<String>> caller : callers) {
+            accessTokens.add(caller.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(1, refreshCalls.get());
+        hubSpot.tryEmitValue(response(HttpStatus.OK, REFRESHED));
+
+        List<String> tokens = Flux.merge(accessTokens).collectList().block(Duration.ofSeconds(5));
+        assertEquals(200, tokens.size());
+        tokens.forEach(token -> assertEquals("refreshed", token));
+        assertEquals(1, refreshCalls.get());
+        assertEquals("refreshed", tokenManager.resolve("initial").block());
+    }
+
+    @Test
+    void aRejectedRefreshForgetsTheAccount() throws Exception {
+        respondWith(request -> Mono.just(response(HttpStatus.BAD_REQUEST, "{\"status\":\"BAD_REFRESH_TOKEN\"}")));
+        registerExpiredTokens();
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> tokenManager.getAccessToken(HUB_ID).block());
+
+        assertEquals(HttpStatus.UNAUTHORIZED, error.getStatusCode());
+        assertNull(tokenStore.get(HUB_ID));
+        assertEquals("initial", tokenManager.resolve("initial").block());
+    }
+
+    @Test
+    void aThrottledRefreshKeepsTheAccount() throws Exception {
+        respondWith(request -> Mono.just(response(HttpStatus.TOO_MANY_REQUESTS, "{}")));
+        registerExpiredTokens();
+
+        Exception error = assertThrows(Exception.class, () -> tokenManager.getAccessToken(HUB_ID).block());
+
+        assertInstanceOf(WebClientResponseException.TooManyRequests.class, error);
+        assertNotNull(tokenStore.get(HUB_ID));
+    }
+
+    private void registerExpiredTokens() throws Exception {
+        AuthResponse authResponse = objectMapper.readValue("{\"access_token\":\"initial\",\"refresh_token\":\"refresh-1\",\"expires_in\":0}", AuthResponse.class);
+        tokenManager.register(authResponse).block();
+    }
+
+    private void respondWith(Function<ClientRequest, Mono<ClientResponse>> hubSpot) {
+        ReflectionTestUtils.setField(tokenManager, "webClient", WebClient.builder()
+                .baseUrl("https://api.hubapi.com")
+                .exchangeFunction(request -> {
+                    if (request.url().getPath().equals(tokenManager.endpoint)) {
+                        refreshCalls.incrementAndGet();
+                    }
+                    return hubSpot.apply(request);
+                })
+                .build());
+    }
+
+    private static ClientResponse response(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.meetime_test_app.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CachingTokenStoreTest {
+
+    private static final Instant EXPIRES_AT = Instant.parse("2030-01-01T00:00:00Z");
+
+    @Test
+    void aSlowReadDoesNotCacheThePairAConcurrentReplaceOverwrote() throws Exception {
+        TokenPair stale = new TokenPair("123", "old-access", "refresh", EXPIRES_AT, null);
+        TokenPair refreshed = new TokenPair("123", "new-access", "refresh", EXPIRES_AT, "old-access");
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch readMayFinish = new CountDownLatch(1);
+
+        // Reads of the store go to disk: this one has already read the stale pair when it is held.
+        InMemoryTokenStore delegate = new InMemoryTokenStore() {
+            @Override
+            public TokenPair get(String hubId) {
+                TokenPair pair = super.get(hubId);
+                reading.countDown();
+                await(readMayFinish);
+                return pair;
+            }
+        };
+        CachingTokenStore store = new CachingTokenStore(delegate);
+        delegate.replace(stale);
+
+        Thread reader = new Thread(() -> store.get("123"));
+        reader.start();
+        reading.await(5, TimeUnit.SECONDS);
+
+        Thread writer = new Thread(() -> store.replace(refreshed));
+        writer.start();
+        writer.join(200);
+        readMayFinish.countDown();
+        reader.join(5_000);
+        writer.join(5_000);
+
+        assertEquals(refreshed, store.get("123"));
+    }
+
+    @Test
+    void accountsUnknownToTheStoreAreNotCached() {
+        InMemoryTokenStore delegate = new InMemoryTokenStore();
+        CachingTokenStore store = new CachingTokenStore(delegate);
+
+        assertNull(store.get("123"));
+
+        // Authorized through another node sharing the store.
+        TokenPair pair = new TokenPair("123", "access", "refresh", EXPIRES_AT, null);
+        delegate.replace(pair);
+        assertEquals(pair, store.get("123"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
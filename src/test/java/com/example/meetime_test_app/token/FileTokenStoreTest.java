@@ -0,0 +1,94 @@
+package com.example.meetime_test_app.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileTokenStoreTest {
+
+    private static final SecretKey KEY = new SecretKeySpec(new byte[32], "AES");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void tokensSurviveANewStoreAndAreNotWrittenInClear() throws Exception {
+        TokenPair pair = new TokenPair("123", "access-token", "refresh-token", Instant.parse("2030-01-01T00:00:00Z"), null);
+        new FileTokenStore(directory, KEY, objectMapper).replace(pair);
+
+        FileTokenStore reopened = new FileTokenStore(directory, KEY, objectMapper);
+        assertEquals(pair, reopened.get("123"));
+        assertEquals(List.of(pair), List.copyOf(reopened.findAll()));
+        assertNull(reopened.get("456"));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                assertFalse(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).contains("refresh-token"));
+            }
+        }
+    }
+
+    @Test
+    void aDifferentKeyCannotReadTheTokens() {
+        new FileTokenStore(directory, KEY, objectMapper).replace(new TokenPair("123", "a", "r", Instant.now(), null));
+
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        FileTokenStore store = new FileTokenStore(directory, new SecretKeySpec(otherKey, "AES"), objectMapper);
+        assertThrows(IllegalStateException.class, () -> store.get("123"));
+    }
+
+    @Test
+    void concurrentWritesOfOnePortalEachReplaceADifferentPair() throws Exception {
+        FileTokenStore store = new FileTokenStore(directory, KEY, objectMapper);
+        List<TokenPair> written = IntStream.range(0, 32)
+                .mapToObj(i -> new TokenPair("123", "access-" + i, "refresh", Instant.parse("2030-01-01T00:00:00Z"), null))
+                .toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<TokenPair>> results = executor.invokeAll(written.stream()
+                .<Callable<TokenPair>>map(pair -> () -> store.replace(pair))
+                .toList());
+        executor.shutdown();
+
+        List<TokenPair> replaced = new ArrayList<>();
+        for (Future<TokenPair> result : results) {
+            replaced.add(result.get());
+        }
+
+        // Each write saw exactly one predecessor: the first saw none, and only the last was never replaced.
+        TokenPair current = store.get("123");
+        Set<TokenPair> expected = new HashSet<>(written);
+        expected.remove(current);
+        expected.add(null);
+        assertEquals(written.size(), new HashSet<>(replaced).size());
+        assertEquals(expected, new HashSet<>(replaced));
+
+        assertEquals(current, store.remove("123"));
+        assertNull(store.get("123"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.meetime_test_app.utils;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void itemsOfTheSameKeyWithinTheWindowShareOneBatch() {
+        MicroBatcher<String, Integer, Integer> batcher = new MicroBatcher<>(100, Duration.ofMillis(50), this::doubleAll);
+
+        List<Integer> results = Mono.zip(
+                        batcher.submit("a", 1),
+                        batcher.submit("a", 2),
+                        batcher.submit("b", 3))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2(), tuple.getT3()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(2, 4, 6), results);
+        assertEquals(2, batches.size());
+        assertTrue(batches.contains(List.of(1, 2)));
+        assertTrue(batches.contains(List.of(3)));
+    }
+
+    @Test
+    void fullBatchIsFlushedWithoutWaitingForTheWindow() {
+        MicroBatcher<String, Integer, Integer> batcher = new MicroBatcher<>(2, Duration.ofHours(1), this::doubleAll);
+
+        List<Integer> results = Mono.zip(batcher.submit("a", 1), batcher.submit("a", 2))
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of(2, 4), results);
+        assertEquals(List.of(List.of(1, 2)), batches);
+    }
+
+    @Test
+    void itemsLeftUnansweredFailOnceTheHandlerCompletes() {
+        MicroBatcher<String, Integer, Integer> batcher = new MicroBatcher<>(1, Duration.ofMillis(10), (key, batch) -> Mono.empty());
+
+        assertThrows(IllegalStateException.class, () -> batcher.submit("a", 1).block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void handlerFailureFailsEveryItemOfTheBatch() {
+        MicroBatcher<String, Integer, Integer> batcher = new MicroBatcher<>(2, Duration.ofHours(1),
+                (key, batch) -> Mono.error(new IllegalArgumentException("rejected")));
+
+        List<Throwable> errors = Mono.zip(
+                        batcher.submit("a", 1).map(Object.class::cast).onErrorResume(Mono::just),
+                        batcher.submit("a", 2).map(Object.class::cast).onErrorResume(Mono::just))
+                .map(tuple -> List.of((Throwable) tuple.getT1(), (Throwable) tuple.getT2()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(2, errors.size());
+        errors.forEach(error -> assertEquals("rejected", error.getMessage()));
+    }
+
+    private Mono<Void> doubleAll(String key, List<MicroBatcher.Pending<Integer, Integer>> batch) {
+        batches.add(batch.stream().map(MicroBatcher.Pending::item).toList());
+        batch.forEach(pending -> pending.success(pending.item() * 2));
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.meetime_test_app.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SingleFlightCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentLookupsOfAMissingKeyShareOneLoad() {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+        Sinks.One<String> upstream = Sinks.one();
+
+        List<String> values = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            cache.get("key", key -> counted(upstream.asMono()), value -> Duration.ofMinutes(1)).subscribe(values::add);
+        }
+        assertEquals(1, loads.get());
+
+        upstream.tryEmitValue("value");
+
+        assertEquals(List.of("value", "value", "value"), values);
+        assertEquals("value", cache.get("key", key -> counted(Mono.just("other")), value -> Duration.ofMinutes(1)).block());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getCoalescedCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void entriesExpireAfterTheirTimeToLive() throws InterruptedException {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+
+        cache.get("short", key -> counted(Mono.just("a")), value -> Duration.ofMillis(20)).block();
+        cache.get("long", key -> counted(Mono.just("b")), value -> Duration.ofMinutes(1)).block();
+        cache.get("never", key -> counted(Mono.just("c")), value -> Duration.ZERO).block();
+        assertEquals("a", cache.getIfPresent("short"));
+        assertNull(cache.getIfPresent("never"));
+
+        Thread.sleep(50);
+
+        assertNull(cache.getIfPresent("short"));
+        assertEquals("b", cache.getIfPresent("long"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("a", cache.get("short", key -> counted(Mono.just("a")), value -> Duration.ofMillis(20)).block());
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void ratioGaugesShareOutAllLookups() {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>(10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.registerMetrics(registry, "test.cache");
+        assertEquals(0, registry.get("test.cache.hit-ratio").gauge().value());
+
+        Sinks.One<String> upstream = Sinks.one();
+        cache.get("key", key -> upstream.asMono(), value -> Duration.ofMinutes(1)).subscribe();
+        cache.get("key", key -> upstream.asMono(), value -> Duration.ofMinutes(1)).subscribe();
+        upstream.tryEmitValue("value");
+        cache.get("key", key -> upstream.asMono(), value -> Duration.ofMinutes(1)).block();
+        cache.get("key", key -> upstream.asMono(), value -> Duration.ofMinutes(1)).block();
+
+        // One load, one lookup that joined it and two answered from the cache.
+        assertEquals(0.5, registry.get("test.cache.hit-ratio").gauge().value());
+        assertEquals(0.25, registry.get("test.cache.coalesced-ratio").gauge().value());
+        assertEquals(1, registry.get("test.cache.size").gauge().value());
+    }
+
+    private <T> Mono<T> counted(Mono<T> load) {
+        return Mono.defer(() -> {
+            loads.incrementAndGet();
+            return load;
+        });
+    }
+}
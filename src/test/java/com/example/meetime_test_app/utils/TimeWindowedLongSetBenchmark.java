@@ -0,0 +1,124 @@
+package com.example.meetime_test_app.utils;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap per million remembered event ids and adds per second of {@link TimeWindowedLongSet}, next
+ * to the {@code HashSet<Long>} it replaces. Heap is what stays reachable after a full GC; the
+ * throughput runs use the application's window of 12 buckets of 65536 ids, with a clock that moves
+ * by one bucket every 60000 events so buckets keep expiring and being cleared, once with only new
+ * ids and once with one in ten events a redelivery of a recent one.
+ *
+ * <p>{@link System#gc()} and a shared heap make these numbers approximate, so they are printed only.
+ * Surefire leaves this class alone; start {@link #main} from the IDE or with the test classpath, with
+ * a heap of at least 512 MB.
+ */
+public class TimeWindowedLongSetBenchmark {
+
+    private static final int MILLION = 1_000_000;
+
+    private static final Duration WINDOW = Duration.ofHours(1);
+
+    private static final int BUCKETS = 12;
+
+    private static final int MAX_EVENTS_PER_BUCKET = 65_536;
+
+    private static final int EVENTS_PER_BUCKET_PERIOD = 60_000;
+
+    private static final int MEASURED_EVENTS = 20_000_000;
+
+    private static final int REDELIVERY_DISTANCE = 1_000;
+
+    // Keeps the measured sets reachable until their heap was read.
+    private static Object retained;
+
+    public static void main(String[] args) {
+        TimeWindowedLongSetBenchmark benchmark = new TimeWindowedLongSetBenchmark();
+        benchmark.memory();
+        benchmark.throughput();
+    }
+
+    private void memory() {
+        long windowed = windowedSetHeap();
+        long hashSet = hashSetHeap();
+
+        System.out.printf("Heap per million event ids: time-windowed set %,d B, HashSet<Long> %,d B%n", windowed, hashSet);
+    }
+
+    private long windowedSetHeap() {
+        int perBucket = (MILLION + BUCKETS - 1) / BUCKETS;
+        long bucketMillis = WINDOW.toMillis() / BUCKETS;
+        AtomicLong now = new AtomicLong();
+
+        long before = usedHeap();
+        TimeWindowedLongSet set = new TimeWindowedLongSet(WINDOW, BUCKETS, perBucket, now::get);
+        // Buckets are allocated on first use, so the clock walks through all of them.
+        for (int i = 0; i < MILLION; i++) {
+            now.set((long) i / perBucket * bucketMillis);
+            set.add(eventId(i));
+        }
+        retained = set;
+        long heap = usedHeap() - before;
+        retained = null;
+        return heap;
+    }
+
+    private long hashSetHeap() {
+        long before = usedHeap();
+        Set<Long> set = new HashSet<>();
+        for (int i = 0; i < MILLION; i++) {
+            set.add(eventId(i));
+        }
+        retained = set;
+        long heap = usedHeap() - before;
+        retained = null;
+        return heap;
+    }
+
+    private void throughput() {
+        // Warm-up.
+        addRate(0);
+        addRate(10);
+
+        System.out.printf("Adds per second, new ids only: %,.0f%n", addRate(0));
+        System.out.printf("Adds per second, 1 in 10 redelivered: %,.0f%n", addRate(10));
+    }
+
+    private double addRate(int redeliveryEvery) {
+        AtomicLong now = new AtomicLong();
+        TimeWindowedLongSet set = new TimeWindowedLongSet(WINDOW, BUCKETS, MAX_EVENTS_PER_BUCKET, now::get);
+        long bucketMillis = WINDOW.toMillis() / BUCKETS;
+
+        long start = System.nanoTime();
+        int duplicates = 0;
+        for (int i = 0; i < MEASURED_EVENTS; i++) {
+            now.set((long) i / EVENTS_PER_BUCKET_PERIOD * bucketMillis);
+            boolean redelivery = redeliveryEvery > 0 && i % redeliveryEvery == 0 && i >= REDELIVERY_DISTANCE;
+            if (!set.add(eventId(redelivery ? i - REDELIVERY_DISTANCE : i))) {
+                duplicates++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (redeliveryEvery > 0 && duplicates == 0) {
+            throw new IllegalStateException("No redelivery was recognized");
+        }
+        return MEASURED_EVENTS * 1_000_000_000.0 / elapsed;
+    }
+
+    // HubSpot's event ids are large and close together, not small sequential numbers.
+    private static long eventId(int i) {
+        return 4_200_000_000L + i * 7L;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
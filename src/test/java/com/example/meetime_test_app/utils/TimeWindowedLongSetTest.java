@@ -0,0 +1,53 @@
+package com.example.meetime_test_app.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeWindowedLongSetTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void rejectsValuesSeenWithinTheWindow() {
+        TimeWindowedLongSet set = new TimeWindowedLongSet(Duration.ofSeconds(10), 10, 16, now::get);
+
+        assertTrue(set.add(42));
+        assertTrue(set.add(0));
+        now.set(5_000);
+        assertFalse(set.add(42));
+        assertFalse(set.add(0));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void forgetsValuesOnceTheirBucketExpires() {
+        TimeWindowedLongSet set = new TimeWindowedLongSet(Duration.ofSeconds(10), 10, 16, now::get);
+
+        assertTrue(set.add(42));
+        now.set(9_999);
+        assertFalse(set.add(42));
+        now.set(10_000);
+        assertTrue(set.add(7));
+        now.set(19_999);
+        assertTrue(set.add(42));
+    }
+
+    @Test
+    void letsValuesThroughWhenABucketIsFull() {
+        TimeWindowedLongSet set = new TimeWindowedLongSet(Duration.ofSeconds(10), 10, 1_000, now::get);
+
+        for (long value = 1; value <= 1_000; value++) {
+            assertTrue(set.add(value));
+        }
+        assertTrue(set.add(1_001));
+        assertTrue(set.add(1_001));
+        assertFalse(set.add(500));
+        assertEquals(2, set.getOverflows());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.meetime_test_app.utils;
+
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Bytes allocated and CPU time per event when a bulk-import delivery of {@value #EVENTS_PER_DELIVERY}
+ * events is read by {@link WebhookEventParser}, against binding the same payload to a
+ * {@code List<ContactWebHookRequest>} with the application's {@link ObjectMapper} settings. Both
+ * sides touch every event, as the drainer does.
+ *
+ * <p>The figures come from the current thread's allocation and CPU counters, which vary between JVMs
+ * and runs; they are printed to compare the two readers, not asserted. Not picked up by Surefire: run
+ * {@link #main} with the test classpath after {@code mvn test-compile}.
+ */
+public class WebhookEventParserBenchmark {
+
+    private static final int EVENTS_PER_DELIVERY = 1_000;
+
+    private static final int WARMUP_DELIVERIES = 2_000;
+
+    private static final int MEASURED_DELIVERIES = 2_000;
+
+    private static final TypeReference<List<ContactWebHookRequest>> EVENTS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final WebhookEventParser parser = new WebhookEventParser(objectMapper.getFactory(), 256);
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final byte[] delivery = delivery(EVENTS_PER_DELIVERY);
+
+    // Folds in what the readers hand over, so their work cannot be optimized away.
+    private long checksum;
+
+    public static void main(String[] args) throws IOException {
+        new WebhookEventParserBenchmark().run();
+    }
+
+    private void run() throws IOException {
+        Cost binding = measure(() -> {
+            for (ContactWebHookRequest event : objectMapper.readValue(delivery, EVENTS)) {
+                consume(event);
+            }
+        });
+        Cost streaming = measure(() -> parser.parse(delivery, this::consume));
+
+        System.out.printf("Delivery of %d events, %d bytes: data binding %d B / %d ns per event, streaming parser %d B / %d ns per event%n",
+                EVENTS_PER_DELIVERY, delivery.length, binding.allocatedBytes(), binding.cpuNanos(), streaming.allocatedBytes(), streaming.cpuNanos());
+    }
+
+    private Cost measure(DeliveryReader reader) throws IOException {
+        for (int i = 0; i < WARMUP_DELIVERIES; i++) {
+            reader.read();
+        }
+
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_DELIVERIES; i++) {
+            reader.read();
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        long events = (long) MEASURED_DELIVERIES * EVENTS_PER_DELIVERY;
+        return new Cost(cpu / events, allocated / events);
+    }
+
+    private void consume(ContactWebHookRequest event) {
+        checksum += event.getEventId() ^ event.getObjectId() ^ event.getSubscriptionType().length();
+    }
+
+    // A contact import: creations and property changes, with the source fields HubSpot sends.
+    private static byte[] delivery(int events) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < events; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            boolean creation = i % 2 == 0;
+            json.append("{\"eventId\":").append(3_100_000_000L + i)
+                    .append(",\"subscriptionId\":2712345,\"portalId\":44512345,\"appId\":3012345")
+                    .append(",\"occurredAt\":").append(1_714_564_800_000L + i)
+                    .append(",\"subscriptionType\":\"").append(creation ? "contact.creation" : "contact.propertyChange").append('"')
+                    .append(",\"attemptNumber\":0,\"objectId\":").append(51_000 + i / 2);
+            if (creation) {
+                json.append(",\"changeFlag\":\"CREATED\"");
+            } else {
+                json.append(",\"propertyName\":\"lifecyclestage\",\"propertyValue\":\"lead\"");
+            }
+            json.append(",\"changeSource\":\"IMPORT\",\"sourceId\":\"12345678\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface DeliveryReader {
+
+        void read() throws IOException;
+    }
+
+    private record Cost(long cpuNanos, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.meetime_test_app.utils;
+
+import com.example.meetime_test_app.dto.request.ContactWebHookRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebhookEventParserTest {
+
+    private final WebhookEventParser parser = new WebhookEventParser(new JsonFactory(), 16);
+
+    @Test
+    void readsEveryEventAndSharesRepeatedStrings() throws IOException {
+        List<ContactWebHookRequest> events = new ArrayList<>();
+
+        int count = parser.parse(bytes("""
+                [
+                  {"eventId":1,"subscriptionId":2,"portalId":3,"appId":4,"occurredAt":5,"subscriptionType":"contact.creation",
+                   "attemptNumber":0,"objectId":6,"changeFlag":"CREATED","changeSource":"CRM","sourceId":"7","extra":{"a":[1,2]}},
+                  {"eventId":8,"subscriptionType":"contact.creation","objectId":9,"changeFlag":"CREATED","changeSource":null}
+                ]
+                """), events::add);
+
+        assertEquals(2, count);
+        ContactWebHookRequest first = events.get(0);
+        assertEquals(1, first.getEventId());
+        assertEquals(2, first.getSubscriptionId());
+        assertEquals(3, first.getPortalId());
+        assertEquals(4, first.getAppId());
+        assertEquals(5, first.getOccurredAt());
+        assertEquals("contact.creation", first.getSubscriptionType());
+        assertEquals(6, first.getObjectId());
+        assertEquals("CREATED", first.getChangeFlag());
+        assertEquals("CRM", first.getChangeSource());
+        assertEquals(7, first.getSourceId());
+
+        ContactWebHookRequest second = events.get(1);
+        assertEquals(8, second.getEventId());
+        assertSame(first.getSubscriptionType(), second.getSubscriptionType());
+        assertSame(first.getChangeFlag(), second.getChangeFlag());
+        assertNull(second.getChangeSource());
+    }
+
+    @Test
+    void handsOverEventsReadBeforeAMalformedOne() {
+        List<ContactWebHookRequest> events = new ArrayList<>();
+
+        assertThrows(IOException.class, () -> parser.parse(bytes("[{\"eventId\":1},{\"eventId\":"), events::add));
+        assertEquals(1, events.size());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}